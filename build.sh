@@ -1 +1 @@
-javac -d bin/ -cp src/chiefarch/ src/chiefarch/*
+javac -d bin/ -cp src/chiefarch/ src/chiefarch/* src/CampusPaths.java && java -cp bin/ chiefarch.AllocationBudget && java -cp bin/ chiefarch.CampusPaths --regions data/regions/regions.dat --batch data/regions/queries.txt | diff data/regions/expected.txt -
@@ -1,8 +1,28 @@
 package chiefarch;
 
 import java.awt.geom.Point2D;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import chiefarch.CampusParser.MalformedDataException;
 
@@ -19,7 +39,22 @@ public class CampusPaths {
 	private static final String BUILDINGS_PATH = DATA_PATH + "campus_buildings.dat";
 	private static final String PATHS_PATH = DATA_PATH + "campus_paths.dat";
 	
-	private static CampusMap map;
+	// number of landmarks used to speed up route searches
+	private static final int LANDMARKS = 8;
+	
+	// line separator used by System.out.println, so that batch output matches interactive output
+	private static final String NEWLINE = System.lineSeparator();
+	
+	// how many queries each worker thread may have answered ahead of the writer in batch mode
+	private static final int BATCH_AHEAD = 64;
+	
+	// most buildings listed by a search
+	private static final int SEARCH_RESULTS = 10;
+	
+	// how long a region of a regional map may go unused before it is dropped from memory
+	private static final long REGION_IDLE_MILLIS = 60000;
+	
+	private static RouteMap map;
 	
 	/**
 	 * Prints a list of options for user input
@@ -29,6 +64,7 @@ public class CampusPaths {
 				"Menu:"
 			  + "\n\tr to find a route"
 			  + "\n\tb to see a list of all buildings"
+			  + "\n\ts to search for a building by part of its name"
 			  + "\n\tq to quit\n"
 		);
 	}
@@ -45,6 +81,22 @@ public class CampusPaths {
 		System.out.println();
 	}
 	
+	/**
+	 * Takes user input and prints the buildings whose abbreviations or names contain it
+	 * 
+	 * @param scanner : to request user input
+	 */
+	private static void searchBuildings(Scanner scanner) {
+		System.out.print("Part of a building name or abbreviation: ");
+		String query = scanner.nextLine();
+		
+		List<String> matches = map.searchBuildings(query, SEARCH_RESULTS);
+		if (matches.isEmpty()) System.out.println("No matching buildings");
+		for (String abbrev : matches)
+			System.out.println("\t" + abbrev + ": " + map.getFullName(abbrev));
+		System.out.println();
+	}
+	
 	/**
 	 * Takes user input and prints the path between two specified buildings
 	 * 
@@ -58,54 +110,240 @@ public class CampusPaths {
 		System.out.print("Abbreviated name of ending building: ");
 		String end = scanner.nextLine();
 		
+		System.out.print(describeRoute(start, end));
+	}
+	
+	/**
+	 * Describes the path between two specified buildings, hop by hop
+	 * 
+	 * @param start : the abbreviated name of the starting building
+	 * @param end   : the abbreviated name of the ending building
+	 * @return the text to show the user, ending with a blank line
+	 */
+	private static String describeRoute(String start, String end) {
+		StringBuilder out = new StringBuilder();
+		
 		// check that these buildings are valid
 		boolean unknown = false;
 		if (!map.hasBuilding(start)) {
-			System.out.println("Unknown building: " + start);
+			out.append("Unknown building: ").append(start).append(NEWLINE);
 			unknown = true;
 		}
 		if (!map.hasBuilding(end)) {
-			System.out.println("Unknown building: " + end);
+			out.append("Unknown building: ").append(end).append(NEWLINE);
 			unknown = true;
 		}
-		if (unknown) {
-			System.out.println();
-			return;
-		}
+		if (unknown) return out.append(NEWLINE).toString();
 		
 		// declare path explored
-		System.out.println("Path from " + map.getFullName(start) + " to " + map.getFullName(end) + ":");
+		out.append("Path from ").append(map.getFullName(start)).append(" to ")
+				.append(map.getFullName(end)).append(":").append(NEWLINE);
 		
-		// get path and initialize variables for iteration
-		List<Point2D.Double> path = map.findRoute(start, end);
-		Double totalDistance = 0.0;
-		Point2D.Double src = map.locationOf(start);
+		// get path, which starts at the starting building
+		RouteGeometry route = map.findRouteGeometry(start, end);
+		if (route == null) return out.append("No path found").append(NEWLINE).append(NEWLINE).toString();
+		List<Point2D.Double> points = route.points();
 		
-		// iterate over path members and print the deets
-		for (Point2D.Double dest : path) {
-			Double distance = map.distanceBetween(src, dest);
+		// iterate over path members and describe the deets
+		for (int i = 1; i < points.size(); i++) {
+			Point2D.Double src = points.get(i - 1);
+			Point2D.Double dest = points.get(i);
+			double distance = route.distanceAt(i) - route.distanceAt(i - 1);
 			String direction = CampusMap.getDirection(src, dest);
 			
-			System.out.println("\tWalk " + String.format("%d", Math.round(distance)) + " feet " + direction
-					+ " to " + String.format("(%d, %d)", Math.round(dest.x), Math.round(dest.y)));
-			
-			src = dest;
-			totalDistance += distance;
+			out.append("\tWalk ").append(Math.round(distance)).append(" feet ").append(direction)
+					.append(" to (").append(Math.round(dest.x)).append(", ").append(Math.round(dest.y))
+					.append(")").append(NEWLINE);
 		}
 		
 		// report total distance
-		System.out.println("Total distance: " + String.format("%d", Math.round(totalDistance)) + " feet\n");
+		return out.append("Total distance: ").append(Math.round(route.length())).append(" feet\n")
+				.append(NEWLINE).toString();
 	}
 	
+	/**
+	 * Finds the paths for a whole file of queries at once. Each line of input names a starting
+	 * and an ending building separated by a tab; blank lines and lines starting with # are echoed
+	 * back unchanged. Queries are solved in parallel, but their descriptions are written in the
+	 * order the queries were given, exactly as findRoute would print them. A throughput summary is
+	 * printed to standard error at the end.
+	 * 
+	 * @param in  : the queries to answer
+	 * @param out : where to write the answers; every answer finished is written and flushed, even
+	 * 		if the batch fails partway through
+	 * @throws IOException if in cannot be read, out cannot be written to, or a line of in is
+	 * 		malformed (after the answers to every line before it have been written)
+	 */
+	private static void runBatch(BufferedReader in, Writer out) throws IOException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+		long startTime = System.nanoTime();
+		int queries = 0;
+		int lineNumber = 0;
+		boolean flushed = false;
+		
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				lineNumber++;
+				if (line.equals("") || line.startsWith("#")) {
+					pending.add(pool.submit(new Echo(line + NEWLINE)));
+				} else {
+					String[] tokens = line.split("\t");
+					if (tokens.length != 2) {
+						// answer everything before the bad line, so the output covers a clean prefix
+						while (!pending.isEmpty())
+							out.write(pending.remove().get());
+						throw new IOException("Line " + lineNumber + ": expected two buildings separated by a tab: "
+								+ line);
+					}
+					pending.add(pool.submit(new Query(tokens[0], tokens[1])));
+					queries++;
+				}
+				
+				// write out whatever is finished at the front without letting the backlog grow
+				while (!pending.isEmpty() && (pending.peek().isDone() || pending.size() > threads * BATCH_AHEAD))
+					out.write(pending.remove().get());
+			}
+			while (!pending.isEmpty())
+				out.write(pending.remove().get());
+			out.flush();
+			flushed = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while finding routes");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+			if (!flushed) {
+				// write out the answers so far, without hiding the failure that got us here
+				try {
+					out.flush();
+				} catch (IOException e) {
+					// the original failure is the one worth reporting
+				}
+			}
+		}
+		
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		String summary = String.format("%d routes in %.3f s (%.1f routes/s on %d threads", queries, seconds,
+				queries / seconds, threads);
+		if (map instanceof CampusMap)
+			summary += ", " + ((CampusMap) map).getCoalescedRouteCount()
+					+ " queries joined an identical search in progress";
+		if (map instanceof RegionalMap)
+			summary += ", regions in memory: " + ((RegionalMap) map).getLoadedRegions();
+		System.err.println(summary + ")");
+	}
+	
+	/**
+	 * Query describes the path between two buildings when called
+	 */
+	private static class Query implements Callable<String> {
+		private final String start;
+		private final String end;
+		
+		public Query(String start, String end) {
+			this.start = start;
+			this.end = end;
+		}
+		
+		@Override
+		public String call() {
+			return describeRoute(start, end);
+		}
+	}
+	
+	/**
+	 * Echo returns a fixed piece of text when called
+	 */
+	private static class Echo implements Callable<String> {
+		private final String text;
+		
+		public Echo(String text) {
+			this.text = text;
+		}
+		
+		@Override
+		public String call() {
+			return text;
+		}
+	}
+	
+	/**
+	 * Runs CampusPaths. With no arguments, CampusPaths interacts with the user through a menu.
+	 * With "--batch [file]", it answers every query in file (or standard input) and exits. With
+	 * "--trace start end file", it writes a trace of the search for one route to file and exits.
+	 * Any of these may be preceded by "--regions file" to route over the regions listed in file
+	 * (see CampusParser.parseRegionData) instead of the campus map; tracing needs the campus map.
+	 * 
+	 * @param args : command line arguments
+	 */
 	public static void main(String[] args) {
 		try {
-			map = new CampusMap(BUILDINGS_PATH, PATHS_PATH);
+			if (args.length > 1 && args[0].equals("--regions")) {
+				map = new RegionalMap(CampusParser.parseRegionData(args[1]), REGION_IDLE_MILLIS);
+				args = Arrays.copyOfRange(args, 2, args.length);
+			} else {
+				// no profiles are added here, so two-way paths can be stored once and checked for one-way ones
+				CampusMap campusMap = new CampusMap(BUILDINGS_PATH, PATHS_PATH, true);
+				campusMap.useLandmarks(LANDMARKS);
+				for (Map.Entry<Point2D.Double, Point2D.Double> path : campusMap.getAsymmetricPaths())
+					System.err.println("Warning: one-way path from " + path.getKey() + " to " + path.getValue());
+				for (Map.Entry<String, Integer> building : campusMap.getStrandedBuildings().entrySet())
+					System.err.println("Warning: building " + building.getKey() + " is stranded in a component of "
+							+ building.getValue() + " locations");
+				map = campusMap;
+			}
 		} catch (MalformedDataException e) {
 			e.printStackTrace();
 			System.out.println("invalid files");
 			return;
 		}
 		
+		if (args.length > 0 && args[0].equals("--batch")) {
+			try {
+				BufferedReader in = new BufferedReader((args.length > 1)
+						? new FileReader(args[1]) : new InputStreamReader(System.in));
+				Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+				runBatch(in, out);
+				in.close();
+			} catch (IOException e) {
+				// keep errors off standard output, which holds the answers
+				System.err.println("batch failed: " + e.getMessage());
+			}
+			return;
+		}
+		
+		if (args.length > 0 && args[0].equals("--trace")) {
+			if (args.length != 4) {
+				System.out.println("usage: --trace <start> <end> <file>");
+				return;
+			}
+			if (!(map instanceof CampusMap)) {
+				System.out.println("--trace cannot be combined with --regions");
+				return;
+			}
+			// check the buildings first, so a bad name leaves no empty trace file behind
+			if (!map.hasBuilding(args[1]) || !map.hasBuilding(args[2])) {
+				System.out.println("Unknown building(s)");
+				return;
+			}
+			try {
+				OutputStream out = new BufferedOutputStream(new FileOutputStream(args[3]));
+				SearchTrace trace = ((CampusMap) map).traceRoute(args[1], args[2], out);
+				out.close();
+				System.out.println(trace);
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.out.println("trace failed");
+			}
+			return;
+		}
+		
 		printMenu();
 		
 		Scanner scanner = new Scanner(System.in);
@@ -129,6 +367,7 @@ public class CampusPaths {
 			}
 			
 			else if (input.equals("b")) listBuildings();
+			else if (input.equals("s")) searchBuildings(scanner);
 			else if (input.equals("r")) findRoute(scanner);
 			else if (input.equals("m")) printMenu();
 			
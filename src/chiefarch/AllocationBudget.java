@@ -0,0 +1,193 @@
+package chiefarch;
+
+import java.awt.geom.Point2D;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import chiefarch.CampusParser.MalformedDataException;
+
+/**
+ * AllocationBudget guards the routing hot path against changes that make it allocate more: it
+ * measures the bytes each operation below allocates on the calling thread, and exits with a
+ * nonzero status if any operation allocates more than its budget. build.sh runs it after
+ * compiling, so such a change fails the build.
+ *
+ * Budgets are in bytes per operation, and leave some headroom over what each operation allocates
+ * today, so that they catch new per-edge or per-node allocation (or copying) rather than noise.
+ * Raise a budget only for a change that is meant to allocate more.
+ *
+ * Run using 'java -cp bin/ chiefarch.AllocationBudget'
+ */
+public class AllocationBudget {
+
+	// paths for CampusPaths data
+	private static final String DATA_PATH = "data/";
+	private static final String BUILDINGS_PATH = DATA_PATH + "campus_buildings.dat";
+	private static final String PATHS_PATH = DATA_PATH + "campus_paths.dat";
+	
+	// number of untimed rounds of each operation before measuring, to let the JIT settle (escape
+	// analysis removes some allocations only once code is compiled)
+	private static final int WARMUP_ROUNDS = 5;
+	
+	// budgets, in bytes per operation
+	private static final long PARSE_BUILDINGS_BUDGET = 100000;
+	private static final long PARSE_PATHS_BUDGET = 12000000;
+	private static final long PROFILED_GRAPH_BUDGET = 350000;
+	private static final long CAMPUS_MAP_BUDGET = 14000000;
+	private static final long CHILD_MAP_BUDGET = 64;
+	private static final long EDGES_BETWEEN_BUDGET = 16;
+	private static final long DIJKSTRA_BUDGET = 512;
+	private static final long FIND_ROUTE_BUDGET = 1024;
+	
+	/**
+	 * Operation is one operation to hold to a budget, run a fixed number of times per round
+	 */
+	private static abstract class Operation {
+		public final String name;
+		public final long budget;
+		public final int count;
+		
+		/**
+		 * @param name   : a label for the operation
+		 * @param budget : the most bytes one run may allocate, on average
+		 * @param count  : the number of runs in a round
+		 */
+		public Operation(String name, long budget, int count) {
+			this.name = name;
+			this.budget = budget;
+			this.count = count;
+		}
+		
+		/**
+		 * Runs the operation once
+		 *
+		 * @param i : the number of this run within its round
+		 * @return some result of the operation, so that its work cannot be optimized away
+		 */
+		public abstract int run(int i) throws MalformedDataException;
+	}
+	
+	/**
+	 * Measures the bytes an operation allocates and prints how they compare to its budget
+	 *
+	 * @return true if the operation kept to its budget
+	 */
+	private static boolean measure(Operation op) throws MalformedDataException {
+		long sink = 0;
+		for (int round = 0; round < WARMUP_ROUNDS; round++)
+			for (int i = 0; i < op.count; i++)
+				sink += op.run(i);
+		
+		long start = RoutingBenchmark.allocatedBytes();
+		for (int i = 0; i < op.count; i++)
+			sink += op.run(i);
+		long perRun = (RoutingBenchmark.allocatedBytes() - start) / op.count;
+		
+		boolean ok = perRun <= op.budget;
+		System.out.println(String.format("%-36s %12d bytes/op  budget %12d  %s  (%d)",
+				op.name, perRun, op.budget, ok ? "ok" : "OVER BUDGET", sink));
+		return ok;
+	}
+	
+	/**
+	 * @return true if this JVM can tell how many bytes a thread has allocated
+	 */
+	private static boolean canMeasure() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		return bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled();
+	}
+	
+	public static void main(String[] args) throws MalformedDataException {
+		if (!canMeasure()) {
+			System.out.println("This JVM cannot measure allocation; skipping allocation budgets");
+			return;
+		}
+		
+		final CampusMap map = new CampusMap(BUILDINGS_PATH, PATHS_PATH);
+		final List<String> abbrevs = map.getBuildingAbbrevs();
+		final List<Point2D.Double> locations = new ArrayList<Point2D.Double>();
+		for (String abbrev : abbrevs)
+			locations.add(map.locationOf(abbrev));
+		final int pairs = abbrevs.size() * abbrevs.size();
+		
+		Map<Point2D.Double, Map<Point2D.Double, Double>> paths = CampusParser.parsePathData(PATHS_PATH);
+		final Graph<Point2D.Double, Double> boxed = new Graph<Point2D.Double, Double>();
+		final DoubleWeightedGraph<Point2D.Double> primitive = new DoubleWeightedGraph<Point2D.Double>();
+		final List<Point2D.Double[]> edges = new ArrayList<Point2D.Double[]>();
+		for (Point2D.Double point : paths.keySet()) {
+			boxed.addNode(point);
+			primitive.addNode(point);
+			for (Point2D.Double point_i : paths.get(point).keySet()) {
+				boxed.addNode(point_i);
+				primitive.addNode(point_i);
+				boxed.addEdge(point, point_i, paths.get(point).get(point_i));
+				primitive.addEdge(point, point_i, paths.get(point).get(point_i));
+				edges.add(new Point2D.Double[] { point, point_i });
+			}
+		}
+		final ProfiledGraph<Point2D.Double> graph = new ProfiledGraph<Point2D.Double>(primitive);
+		
+		List<Operation> ops = new ArrayList<Operation>();
+		ops.add(new Operation("CampusParser.parseBuildingData", PARSE_BUILDINGS_BUDGET, 1) {
+			@Override
+			public int run(int i) throws MalformedDataException {
+				return CampusParser.parseBuildingData(BUILDINGS_PATH).size();
+			}
+		});
+		ops.add(new Operation("CampusParser.parsePathData", PARSE_PATHS_BUDGET, 1) {
+			@Override
+			public int run(int i) throws MalformedDataException {
+				return CampusParser.parsePathData(PATHS_PATH).size();
+			}
+		});
+		ops.add(new Operation("new ProfiledGraph", PROFILED_GRAPH_BUDGET, 1) {
+			@Override
+			public int run(int i) {
+				return new ProfiledGraph<Point2D.Double>(primitive).size();
+			}
+		});
+		ops.add(new Operation("new CampusMap", CAMPUS_MAP_BUDGET, 1) {
+			@Override
+			public int run(int i) throws MalformedDataException {
+				return new CampusMap(BUILDINGS_PATH, PATHS_PATH).getBuildingAbbrevs().size();
+			}
+		});
+		ops.add(new Operation("Graph.childMap", CHILD_MAP_BUDGET, edges.size()) {
+			@Override
+			public int run(int i) {
+				return boxed.childMap(edges.get(i)[0]).size();
+			}
+		});
+		ops.add(new Operation("Graph.edgesBetween", EDGES_BETWEEN_BUDGET, edges.size()) {
+			@Override
+			public int run(int i) {
+				return boxed.edgesBetween(edges.get(i)[0], edges.get(i)[1]).size();
+			}
+		});
+		ops.add(new Operation("GraphAlgos.runDijsktra", DIJKSTRA_BUDGET, pairs) {
+			@Override
+			public int run(int i) {
+				return GraphAlgos.runDijsktra(graph, ProfiledGraph.DISTANCE,
+						locations.get(i / locations.size()), locations.get(i % locations.size())).size();
+			}
+		});
+		ops.add(new Operation("CampusMap.findRoute", FIND_ROUTE_BUDGET, pairs) {
+			@Override
+			public int run(int i) {
+				return map.findRoute(abbrevs.get(i / abbrevs.size()), abbrevs.get(i % abbrevs.size())).size();
+			}
+		});
+		
+		boolean ok = true;
+		for (Operation op : ops)
+			ok &= measure(op);
+		if (!ok) {
+			System.out.println("Allocation budgets exceeded");
+			System.exit(1);
+		}
+	}
+}
@@ -22,7 +22,7 @@ public class Building {
 	 * @param x		: x coordinate of this building
 	 * @param y		: y coordinate of this building
 	 */
-	public Building(String name, Double x, Double y) {
+	public Building(String name, double x, double y) {
 		this.name = name;
 		this.location = new Point2D.Double(x, y);
 	}
@@ -0,0 +1,302 @@
+package chiefarch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BuildingIndex finds buildings by any part of their abbreviations or full names, fast enough to
+ * run on every keystroke of an autocomplete box. Searches ignore case.
+ *
+ * Matches are ranked by how well they match: abbreviations starting with the query first (an
+ * exact abbreviation before any other), then full names starting with it, then full names with a
+ * later word starting with it, then anything else containing it. Each of the first three kinds
+ * is found by binary search in a sorted array of abbreviations, names or name suffixes starting
+ * at a word, so a search only looks at the matches it returns. Matches of the last kind are found
+ * through n-gram postings: every abbreviation and name is cut into n-grams of up to GRAM
+ * characters, each n-gram maps to the sorted list of buildings containing it, and a query's
+ * candidates are the buildings in the postings of all of its own n-grams.
+ *
+ * BuildingIndex is immutable.
+ *
+ * Abstraction Function:
+ * 		Building i (0 <= i < abbrevs.length) is abbreviated abbrevs[i] and named names[i], which
+ * 			are searched as abbrevKeys[i] and nameKeys[i]
+ * 		byAbbrev and byName list every building in order of abbrevKeys and nameKeys
+ * 		For 0 <= j < wordBuildings.length, nameKeys[wordBuildings[j]] has a word (other than its
+ * 			first) starting at wordStarts[j], in order of the text from there on
+ * 		postings.get(s) lists, in increasing order, every i such that abbrevKeys[i] or
+ * 			nameKeys[i] contains s
+ *
+ * Representation Invariant:
+ * 		no field is null, and abbrevs is sorted with no duplicates
+ * 		abbrevs, names, abbrevKeys, nameKeys, byAbbrev and byName have the same length
+ * 		wordBuildings.length == wordStarts.length
+ * 		every key of postings is 1 to GRAM characters long
+ */
+public class BuildingIndex {
+
+	// longest n-grams indexed
+	private static final int GRAM = 3;
+	
+	private final String[] abbrevs;
+	private final String[] names;
+	private final String[] abbrevKeys;
+	private final String[] nameKeys;
+	private final List<String> abbrevList;
+	
+	private final int[] byAbbrev;
+	private final int[] byName;
+	private final int[] wordBuildings;
+	private final int[] wordStarts;
+	
+	private final Map<String, int[]> postings;
+	
+	/**
+	 * Creates a new BuildingIndex
+	 *
+	 * @param buildings : the buildings to index, by abbreviation
+	 */
+	public BuildingIndex(Map<String, Building> buildings) {
+		int n = buildings.size();
+		abbrevs = buildings.keySet().toArray(new String[n]);
+		Arrays.sort(abbrevs);
+		abbrevList = Collections.unmodifiableList(Arrays.asList(abbrevs));
+		names = new String[n];
+		abbrevKeys = new String[n];
+		nameKeys = new String[n];
+		for (int i = 0; i < n; i++) {
+			names[i] = buildings.get(abbrevs[i]).name;
+			abbrevKeys[i] = normalize(abbrevs[i]);
+			nameKeys[i] = normalize(names[i]);
+		}
+		
+		byAbbrev = sortedBy(abbrevKeys);
+		byName = sortedBy(nameKeys);
+		
+		// every word of every name after the first, in order of the text from its start on
+		List<int[]> words = new ArrayList<int[]>();
+		for (int i = 0; i < n; i++)
+			for (int at = 1; at < nameKeys[i].length(); at++)
+				if (isWordStart(nameKeys[i], at)) words.add(new int[] { i, at });
+		Collections.sort(words, new Comparator<int[]>() {
+			@Override
+			public int compare(int[] a, int[] b) {
+				return nameKeys[a[0]].substring(a[1]).compareTo(nameKeys[b[0]].substring(b[1]));
+			}
+		});
+		wordBuildings = new int[words.size()];
+		wordStarts = new int[words.size()];
+		for (int j = 0; j < wordBuildings.length; j++) {
+			wordBuildings[j] = words.get(j)[0];
+			wordStarts[j] = words.get(j)[1];
+		}
+		
+		Map<String, List<Integer>> lists = new HashMap<String, List<Integer>>();
+		for (int i = 0; i < n; i++) {
+			addGrams(lists, abbrevKeys[i], i);
+			addGrams(lists, nameKeys[i], i);
+		}
+		postings = new HashMap<String, int[]>(2 * lists.size());
+		for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+			int[] ids = new int[entry.getValue().size()];
+			for (int j = 0; j < ids.length; j++)
+				ids[j] = entry.getValue().get(j);
+			postings.put(entry.getKey(), ids);
+		}
+	}
+	
+	/**
+	 * @return every abbreviation in this index, sorted
+	 */
+	public List<String> abbrevs() {
+		return abbrevList;
+	}
+	
+	/**
+	 * Finds the buildings whose abbreviations or full names contain some text
+	 *
+	 * @param query : the text to look for; case and surrounding whitespace are ignored
+	 * @param limit : the most matches to return
+	 * @return the abbreviations of up to limit matching buildings, best matches first as
+	 * 		described above, and in alphabetical order among equally good matches (every building,
+	 * 		in order, if query is blank)
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	public List<String> search(String query, int limit) {
+		if (limit < 0) throw new IllegalArgumentException("Negative limit: " + limit);
+		String q = normalize(query);
+		if (q.isEmpty()) return abbrevList.subList(0, Math.min(limit, abbrevs.length));
+		
+		Set<Integer> found = new LinkedHashSet<Integer>();
+		collectPrefixes(abbrevKeys, byAbbrev, null, q, limit, found);
+		collectPrefixes(nameKeys, byName, null, q, limit, found);
+		collectPrefixes(nameKeys, wordBuildings, wordStarts, q, limit, found);
+		if (found.size() < limit) {
+			for (int i : candidates(q)) {
+				if (found.size() == limit) break;
+				if (abbrevKeys[i].contains(q) || nameKeys[i].contains(q)) found.add(i);
+			}
+		}
+		
+		List<String> results = new ArrayList<String>(found.size());
+		for (int i : found)
+			results.add(abbrevs[i]);
+		return results;
+	}
+	
+	/**
+	 * Finds the one building some text names exactly
+	 *
+	 * @param query : an abbreviation or full name; case and surrounding whitespace are ignored
+	 * @return the abbreviation of the building whose abbreviation (or failing that, whose full
+	 * 		name) equals query, or null if there is no such building or more than one
+	 */
+	public String resolve(String query) {
+		String q = normalize(query);
+		int j = lowerBound(abbrevKeys, byAbbrev, null, q);
+		if (j < byAbbrev.length && abbrevKeys[byAbbrev[j]].equals(q)) return abbrevs[byAbbrev[j]];
+		
+		j = lowerBound(nameKeys, byName, null, q);
+		if (j == byName.length || !nameKeys[byName[j]].equals(q)) return null;
+		if (j + 1 < byName.length && nameKeys[byName[j + 1]].equals(q)) return null;
+		return abbrevs[byName[j]];
+	}
+	
+	/**
+	 * Adds to found, until it holds limit buildings, the buildings whose text starts with q at
+	 * one of a sorted list of positions
+	 *
+	 * @param keys     : the text of each building
+	 * @param order    : buildings in order of their text from each position on
+	 * @param starts   : the position in keys[order[j]] that entry j starts at, or null if every
+	 * 		entry starts at 0
+	 * @param q        : the prefix to look for
+	 * @param limit    : the most buildings found may hold
+	 * @param found    : the buildings found so far, in order
+	 */
+	private static void collectPrefixes(String[] keys, int[] order, int[] starts, String q, int limit,
+			Set<Integer> found) {
+		for (int j = lowerBound(keys, order, starts, q); j < order.length && found.size() < limit; j++) {
+			if (!keys[order[j]].startsWith(q, (starts == null) ? 0 : starts[j])) break;
+			found.add(order[j]);
+		}
+	}
+	
+	/**
+	 * @return the first entry of order (as described by collectPrefixes) whose text is not less
+	 * 		than q, or order.length if there is none
+	 */
+	private static int lowerBound(String[] keys, int[] order, int[] starts, String q) {
+		int lo = 0;
+		int hi = order.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compare(keys[order[mid]], (starts == null) ? 0 : starts[mid], q) < 0) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+	
+	/**
+	 * @return a negative number, zero, or a positive number as text from position start on is
+	 * 		less than, equal to, or greater than q
+	 */
+	private static int compare(String text, int start, String q) {
+		int n = Math.min(text.length() - start, q.length());
+		for (int k = 0; k < n; k++) {
+			char a = text.charAt(start + k);
+			char b = q.charAt(k);
+			if (a != b) return a - b;
+		}
+		return (text.length() - start) - q.length();
+	}
+	
+	/**
+	 * @return the buildings whose abbreviations or names may contain q, in increasing order
+	 */
+	private int[] candidates(String q) {
+		int[] result = null;
+		for (int start = 0; start < q.length(); start += GRAM) {
+			// the last n-gram is shifted back to stay GRAM long, overlapping the one before it
+			int from = Math.max(0, Math.min(start, q.length() - GRAM));
+			int[] ids = postings.get(q.substring(from, Math.min(from + GRAM, q.length())));
+			if (ids == null) return new int[0];
+			result = (result == null) ? ids : intersect(result, ids);
+			if (result.length == 0) break;
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds building i to the postings of every n-gram of key
+	 */
+	private static void addGrams(Map<String, List<Integer>> lists, String key, int i) {
+		for (int start = 0; start < key.length(); start++) {
+			for (int end = start + 1; end <= Math.min(start + GRAM, key.length()); end++) {
+				String gram = key.substring(start, end);
+				List<Integer> list = lists.get(gram);
+				if (list == null) lists.put(gram, list = new ArrayList<Integer>());
+				if (list.isEmpty() || list.get(list.size() - 1) != i) list.add(i);
+			}
+		}
+	}
+	
+	/**
+	 * @return the numbers 0 to keys.length - 1, in order of keys
+	 */
+	private static int[] sortedBy(final String[] keys) {
+		Integer[] order = new Integer[keys.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return keys[a].compareTo(keys[b]);
+			}
+		});
+		int[] result = new int[order.length];
+		for (int i = 0; i < result.length; i++)
+			result[i] = order[i];
+		return result;
+	}
+	
+	/**
+	 * @return true if a word of text starts at position at
+	 */
+	private static boolean isWordStart(String text, int at) {
+		return Character.isLetterOrDigit(text.charAt(at)) && !Character.isLetterOrDigit(text.charAt(at - 1));
+	}
+	
+	/**
+	 * @return the elements common to two sorted arrays, in order
+	 */
+	private static int[] intersect(int[] a, int[] b) {
+		int[] result = new int[Math.min(a.length, b.length)];
+		int n = 0;
+		for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+			if (a[i] < b[j]) i++;
+			else if (a[i] > b[j]) j++;
+			else {
+				result[n++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+	
+	/**
+	 * @return text in the form it is indexed: trimmed and in lower case
+	 */
+	private static String normalize(String text) {
+		return text.trim().toLowerCase(Locale.ROOT);
+	}
+}
@@ -1,12 +1,18 @@
 package chiefarch;
 
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
-import chiefarch.Graph;
 import chiefarch.GraphAlgos;
 import chiefarch.CampusParser.MalformedDataException;
 
@@ -16,37 +22,60 @@ import chiefarch.CampusParser.MalformedDataException;
  * 
  * @author Nolan
  */
-public class CampusMap {
+public class CampusMap implements RouteMap {
 	
-	// a graph of locations and paths around campus
-	private Graph<Point2D.Double, Double> g;
+	// a graph of locations and paths around campus, with a set of edge weights for each profile,
+	// published in immutable versions so that it can change while routes are being found
+	private VersionedGraph<Point2D.Double> g;
 	
 	// a dictionary of sorts for looking up buildings on campus by their abbreviations
 	private Map<String, Building> buildings;
 	
+	// finds buildings by parts of their abbreviations and names
+	private BuildingIndex index;
+	
+	// route searches currently running, keyed by (start, end, profile number, version number)
+	private final SingleFlight<List<Object>, Route> searches = new SingleFlight<List<Object>, Route>();
+	
 	/**
-	 * Creates a new CampusMap
+	 * Creates a new CampusMap that keeps a weight for each direction of every path segment, so
+	 * that profiles may weigh the two directions differently (for example to penalize climbing)
 	 * 
 	 * @param buildings_filename : name of file containing building data
 	 * @param paths_filename     : name of file containing path data
 	 * @throws MalformedDataException if either file is malformed
 	 */
 	public CampusMap(String buildings_filename, String paths_filename) throws MalformedDataException {
+		this(buildings_filename, paths_filename, false);
+	}
+	
+	/**
+	 * Creates a new CampusMap
+	 * 
+	 * @param buildings_filename : name of file containing building data
+	 * @param paths_filename     : name of file containing path data
+	 * @param undirected         : whether to store path segments listed from both ends (with the
+	 * 		same distance) only once; see getAsymmetricPaths(). Every profile of an undirected
+	 * 		CampusMap must weigh the two directions of such a segment alike
+	 * @throws MalformedDataException if either file is malformed
+	 */
+	public CampusMap(String buildings_filename, String paths_filename, boolean undirected)
+			throws MalformedDataException {
 		this.buildings = CampusParser.parseBuildingData(buildings_filename);
+		this.index = new BuildingIndex(buildings);
 		Map<Point2D.Double, Map<Point2D.Double, Double>> paths = CampusParser.parsePathData(paths_filename);
 		
-		g = new Graph<Point2D.Double, Double>();
+		DoubleWeightedGraph<Point2D.Double> graph = new DoubleWeightedGraph<Point2D.Double>();
 		for (Point2D.Double point : paths.keySet()) {
-			g.addNode(point);
+			graph.addNode(point);
 			
 			Map<Point2D.Double, Double> thisMap = paths.get(point);
-			for (Point2D.Double point_i : thisMap.keySet()) {
-				g.addNode(point_i);
-				
-				Double distance = thisMap.get(point_i);
-				g.addEdge(point, point_i, distance);
+			for (Map.Entry<Point2D.Double, Double> entry : thisMap.entrySet()) {
+				graph.addNode(entry.getKey());
+				graph.addEdge(point, entry.getKey(), entry.getValue());
 			}
 		}
+		g = new VersionedGraph<Point2D.Double>(graph, undirected);
 	}
 	
 	/**
@@ -57,25 +86,463 @@ public class CampusMap {
 	 * @return a list of coordinate points that mark locations along the shortest route from start
 	 * 		to end where list[0] is the first location to head to from start and list[list.length - 1]
 	 * 		is end. Returns null if there is no path between start and end (including the case that
-	 * 		either start or end are not buildings on this campus)
+	 * 		either start or end are not buildings on this campus). The list is unmodifiable, since
+	 * 		it may be shared with other callers; copy it to change it, or use findRouteGeometry for
+	 * 		a route that includes the location of start
 	 */
 	public List<Point2D.Double> findRoute(String start, String end) {
+		return findRoute(start, end, ProfiledGraph.DISTANCE_NAME);
+	}
+	
+	/**
+	 * Finds the cheapest route from one building to another under some weight profile
+	 * 
+	 * @param start   : the abbreviation for the building from which we start our journey
+	 * @param end     : the abbreviation for the destination building
+	 * @param profile : the name of the weight profile to measure routes with
+	 * @return a list of coordinate points as described by findRoute(start, end)
+	 * @throws IllegalArgumentException if profile is not a profile of this CampusMap
+	 */
+	public List<Point2D.Double> findRoute(String start, String end, String profile) {
+		return route(start, end, profile).path;
+	}
+	
+	/**
+	 * Finds the cheapest route from one building to another under some weight profile, noting
+	 * which version of this CampusMap's paths the route was found on. The search runs entirely on
+	 * the version that was current when it started, even if the paths change in the meantime.
+	 * 
+	 * Identical calls made while a search for the same route on the same version is still running
+	 * wait for that search and share its result instead of searching again, so the path returned
+	 * may be shared with other callers and cannot be modified.
+	 * 
+	 * @param start   : the abbreviation for the building from which we start our journey
+	 * @param end     : the abbreviation for the destination building
+	 * @param profile : the name of the weight profile to measure routes with
+	 * @return the route found, whose path is as described by findRoute(start, end)
+	 * @throws IllegalArgumentException if profile is not a profile of this CampusMap
+	 */
+	public Route route(String start, String end, String profile) {
+		VersionedGraph.Version<Point2D.Double> version = g.current();
+		return route(version, start, end, profileNumber(version, profile));
+	}
+	
+	/**
+	 * Finds the cheapest route from one building to another on a given version of this
+	 * CampusMap's paths, as route(start, end, profile) does
+	 * 
+	 * @param version : the version of this CampusMap's paths to search
+	 * @param start   : the abbreviation for the building from which we start our journey
+	 * @param end     : the abbreviation for the destination building
+	 * @param p       : the number of the weight profile to measure routes with
+	 * @return the route found
+	 */
+	private Route route(final VersionedGraph.Version<Point2D.Double> version, final String start,
+			final String end, final int p) {
+		if (!buildings.containsKey(start) || !buildings.containsKey(end))
+			return new Route(null, version.number);
+		// buildings in separate components are turned down without searching
+		if (!version.mayReach(buildings.get(start).location, buildings.get(end).location))
+			return new Route(null, version.number);
+		
+		List<Object> key = Arrays.<Object>asList(start, end, p, version.number);
+		return searches.run(key, new Callable<Route>() {
+			@Override
+			public Route call() {
+				Building a = buildings.get(start);
+				Building b = buildings.get(end);
+				Landmarks<Point2D.Double> landmarks = version.landmarks(p);
+				List<Point2D.Double> path = (landmarks != null)
+						? GraphAlgos.runAStar(version.graph, p, a.location, b.location, landmarks)
+						: GraphAlgos.runDijsktra(version.graph, p, a.location, b.location);
+				return new Route((path == null) ? null : Collections.unmodifiableList(path),
+						version.number);
+			}
+		});
+	}
+	
+	/**
+	 * Finds the shortest route from one building to another as findRoute(start, end) does,
+	 * recording how the search explored this CampusMap's paths and writing that trace to a
+	 * stream. The search is never shared with other callers.
+	 * 
+	 * @param start : the abbreviation for the building from which we start our journey
+	 * @param end   : the abbreviation for the destination building
+	 * @param out   : the stream to write the trace to (see SearchTrace.write)
+	 * @return the trace written, or null if either start or end are not buildings on this campus
+	 * @throws IOException if out cannot be written to
+	 */
+	public SearchTrace traceRoute(String start, String end, OutputStream out) throws IOException {
 		if (!buildings.containsKey(start) || !buildings.containsKey(end)) return null;
+		VersionedGraph.Version<Point2D.Double> version = g.current();
+		Point2D.Double a = buildings.get(start).location;
+		Point2D.Double b = buildings.get(end).location;
+		Landmarks<Point2D.Double> landmarks = version.landmarks(ProfiledGraph.DISTANCE);
+		
+		SearchTrace trace = new SearchTrace();
+		if (landmarks != null)
+			GraphAlgos.runAStar(version.graph, ProfiledGraph.DISTANCE, a, b, landmarks, trace);
+		else
+			GraphAlgos.runDijsktra(version.graph, ProfiledGraph.DISTANCE, a, b, trace);
+		trace.write(out, version.graph);
+		return trace;
+	}
+	
+	/**
+	 * Reports how many route searches this CampusMap has run
+	 * 
+	 * @return the number of searches run by route() and findRoute() so far, not counting calls
+	 * 		that shared another call's search
+	 */
+	public long getRouteSearchCount() {
+		return searches.computedCount();
+	}
+	
+	/**
+	 * Reports how many route queries were answered by sharing a search already in progress
+	 * 
+	 * @return the number of calls to route() and findRoute() so far that waited for an identical
+	 * 		search instead of running their own
+	 */
+	public long getCoalescedRouteCount() {
+		return searches.coalescedCount();
+	}
+	
+	/**
+	 * Adds a two-way path segment between two locations, adding the locations if they are new.
+	 * Routes already being found are not affected.
+	 * 
+	 * Each change to the paths rebuilds the whole graph and its landmark tables before it takes
+	 * effect (see VersionedGraph.edit), so it takes time in proportion to the size of the map, not
+	 * of the change. Route queries carry on meanwhile; other changes wait their turn.
+	 * 
+	 * @param a        : one end of the path segment
+	 * @param b        : the other end of the path segment
+	 * @param distance : the length of the path segment
+	 * @return the number of the new version of this CampusMap's paths
+	 * @throws IllegalArgumentException if distance is negative or NaN
+	 */
+	public long addPath(final Point2D.Double a, final Point2D.Double b, final double distance) {
+		return g.edit(new VersionedGraph.Edit<Point2D.Double>() {
+			@Override
+			public void apply(DoubleWeightedGraph<Point2D.Double> graph) {
+				graph.addNode(a);
+				graph.addNode(b);
+				graph.addEdge(a, b, distance);
+				graph.addEdge(b, a, distance);
+			}
+		}).number;
+	}
+	
+	/**
+	 * Removes the two-way path segment between two locations (if there is one). Routes already
+	 * being found are not affected. This costs as much as addPath.
+	 * 
+	 * @param a : one end of the path segment
+	 * @param b : the other end of the path segment
+	 * @return the number of the new version of this CampusMap's paths
+	 */
+	public long removePath(final Point2D.Double a, final Point2D.Double b) {
+		return g.edit(new VersionedGraph.Edit<Point2D.Double>() {
+			@Override
+			public void apply(DoubleWeightedGraph<Point2D.Double> graph) {
+				if (!graph.contains(a) || !graph.contains(b)) return;
+				graph.removeEdge(a, b);
+				graph.removeEdge(b, a);
+			}
+		}).number;
+	}
+	
+	/**
+	 * Removes a location and every path segment touching it (if it is on this CampusMap). Routes
+	 * already being found are not affected. This costs as much as addPath.
+	 * 
+	 * @param location : the location to remove
+	 * @return the number of the new version of this CampusMap's paths
+	 */
+	public long removeLocation(Point2D.Double location) {
+		return g.removeNode(location).number;
+	}
+	
+	/**
+	 * Fetches the number of the current version of this CampusMap's paths. The number goes up by
+	 * one each time the paths, profiles or landmarks change.
+	 * 
+	 * @return the current version number
+	 */
+	public long getVersion() {
+		return g.current().number;
+	}
+	
+	/**
+	 * Adds a weight profile to this CampusMap, sharing the paths of every other profile but
+	 * weighing them differently (for example to penalize stairs or unlit paths)
+	 * 
+	 * @param name    : the name of the new profile
+	 * @param weigher : computes the cost of walking each path segment under the new profile, given
+	 * 		its endpoints and its length
+	 * @throws IllegalArgumentException if a profile with this name already exists, if weigher
+	 * 		gives any path segment a negative or NaN cost, or if this CampusMap is undirected and
+	 * 		weigher gives the two directions of a path segment stored once different costs
+	 */
+	public void addProfile(String name, ProfiledGraph.EdgeWeigher<Point2D.Double> weigher) {
+		g.addProfile(name, weigher);
+	}
+	
+	/**
+	 * Fetches the names of all weight profiles of this CampusMap
+	 * 
+	 * @return a list of profile names, starting with ProfiledGraph.DISTANCE_NAME
+	 */
+	public List<String> getProfiles() {
+		return g.current().graph.profileNames();
+	}
+	
+	/**
+	 * Fetches the path segments that are listed from one end only, or with a different distance
+	 * from each end. Campus paths are all two-way, so these usually point to errors in the path
+	 * data. Only detected when this CampusMap stores two-way path segments once.
+	 * 
+	 * @return an unmodifiable list of (from, to) pairs, one for each such path segment
+	 */
+	public List<Map.Entry<Point2D.Double, Point2D.Double>> getAsymmetricPaths() {
+		return g.current().graph.asymmetricEdges();
+	}
+	
+	/**
+	 * Fetches the buildings that are cut off from most of campus: those whose locations lie
+	 * outside the largest strongly connected component of the paths (the largest set of
+	 * locations that can all reach one another), or on no path at all. Routes to and from these
+	 * buildings reach only a few other locations, so they usually point to errors in the path
+	 * data.
+	 * 
+	 * @return a map, sorted by abbreviation, from each stranded building to the number of
+	 * 		locations in its component (0 if it lies on no path)
+	 */
+	public Map<String, Integer> getStrandedBuildings() {
+		VersionedGraph.Version<Point2D.Double> version = g.current();
+		Components components = version.components;
+		Map<String, Integer> stranded = new TreeMap<String, Integer>();
+		for (Map.Entry<String, Building> entry : buildings.entrySet()) {
+			int v = version.graph.indexOf(entry.getValue().location);
+			if (v < 0) stranded.put(entry.getKey(), 0);
+			else if (components.component(v) != components.largest())
+				stranded.put(entry.getKey(), components.size(components.component(v)));
+		}
+		return stranded;
+	}
+	
+	/**
+	 * Reports how much memory the paths of this CampusMap take up
+	 * 
+	 * @return the number of bytes used by the path topology and the weights of every profile
+	 */
+	public long pathMemoryBytes() {
+		return g.current().graph.memoryBytes();
+	}
+	
+	/**
+	 * Precomputes distances to and from a set of landmark locations on the edge of this campus,
+	 * for every weight profile, which findRoute then uses to steer its search toward the
+	 * destination. Routes found this way are exactly as short as those found without landmarks.
+	 * The landmarks are recomputed whenever the paths change.
+	 * 
+	 * @param count : the number of landmarks to use, or 0 to stop using landmarks
+	 * @throws IllegalArgumentException if count is negative
+	 */
+	public void useLandmarks(int count) {
+		g.useLandmarks(count);
+	}
+	
+	/**
+	 * Reports how much memory the landmark distance tables take up
+	 * 
+	 * @return the size of the landmark tables for all profiles in bytes (0 if landmarks are not
+	 * 		in use)
+	 */
+	public long landmarkMemoryBytes() {
+		return g.current().landmarkMemoryBytes();
+	}
+	
+	/**
+	 * Finds every location that can be reached on foot from a building within some distance
+	 * 
+	 * @param building : the abbreviation for the building to start from
+	 * @param limit    : the maximum walking distance
+	 * @return a map from each reachable location to the walking distance from building to it.
+	 * 		Returns null if building is not on this campus
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	public Map<Point2D.Double, Double> reachableFrom(String building, double limit) {
+		return reachableFrom(building, limit, ProfiledGraph.DISTANCE_NAME);
+	}
+	
+	/**
+	 * Finds every location that can be reached from a building within some cost under a weight
+	 * profile
+	 * 
+	 * @param building : the abbreviation for the building to start from
+	 * @param limit    : the maximum cost
+	 * @param profile  : the name of the weight profile to measure costs with
+	 * @return a map from each reachable location to the cost of reaching it from building.
+	 * 		Returns null if building is not on this campus
+	 * @throws IllegalArgumentException if limit is negative or profile is not a profile of this
+	 * 		CampusMap
+	 */
+	public Map<Point2D.Double, Double> reachableFrom(String building, double limit, String profile) {
+		VersionedGraph.Version<Point2D.Double> version = g.current();
+		int p = profileNumber(version, profile);
+		if (!buildings.containsKey(building)) return null;
+		Map<Point2D.Double, Double> reachable = GraphAlgos.reachableWithin(version.graph, p,
+				buildings.get(building).location, limit);
+		return (reachable == null) ? new HashMap<Point2D.Double, Double>() : reachable;
+	}
+	
+	/**
+	 * Finds the walking distance from one building to each of several others with a single search
+	 * 
+	 * @param start : the abbreviation for the building from which distances are measured
+	 * @param ends  : the abbreviations for the destination buildings
+	 * @return an array where element i is the walking distance from start to ends[i], or
+	 * 		Double.POSITIVE_INFINITY if there is no path between them
+	 * @throws IllegalArgumentException if start or any member of ends is not a building on this
+	 * 		campus
+	 */
+	public double[] distancesFrom(String start, List<String> ends) {
+		if (!buildings.containsKey(start)) throw new IllegalArgumentException("Unknown building: " + start);
+		List<Point2D.Double> locations = new ArrayList<Point2D.Double>(ends.size());
+		for (String end : ends) {
+			if (!buildings.containsKey(end)) throw new IllegalArgumentException("Unknown building: " + end);
+			locations.add(buildings.get(end).location);
+		}
+		return distancesFrom(buildings.get(start).location, locations);
+	}
+	
+	/**
+	 * Finds the shortest route from one building to another, along with the walking distance from
+	 * start to every location along it
+	 * 
+	 * @param start : the abbreviation for the building from which we start our journey
+	 * @param end   : the abbreviation for the destination building
+	 * @return the geometry of the route, starting with the location of start itself. Returns null
+	 * 		if there is no path between start and end (including the case that either start or end
+	 * 		are not buildings on this campus)
+	 */
+	public RouteGeometry findRouteGeometry(String start, String end) {
+		VersionedGraph.Version<Point2D.Double> version = g.current();
+		Route route = route(version, start, end, ProfiledGraph.DISTANCE);
+		if (!route.exists()) return null;
+		
+		List<Point2D.Double> points = new ArrayList<Point2D.Double>(route.path.size() + 1);
+		points.add(buildings.get(start).location);
+		points.addAll(route.path);
+		double[] distances = new double[points.size()];
+		for (int i = 1; i < distances.length; i++)
+			distances[i] = distances[i - 1]
+					+ version.graph.weight(ProfiledGraph.DISTANCE, points.get(i - 1), points.get(i));
+		return new RouteGeometry(points, distances);
+	}
+	
+	/**
+	 * Finds the shortest route between two locations on this CampusMap
+	 * 
+	 * @param from : the location to start from
+	 * @param to   : the location to end at
+	 * @return a list of coordinate points as described by findRoute(start, end), where the last
+	 * 		point is to. Returns null if there is no path between from and to (including the case
+	 * 		that either is not a location on this campus)
+	 */
+	public List<Point2D.Double> findRoute(Point2D.Double from, Point2D.Double to) {
+		VersionedGraph.Version<Point2D.Double> version = g.current();
+		if (!version.mayReach(from, to)) return null;
+		Landmarks<Point2D.Double> landmarks = version.landmarks(ProfiledGraph.DISTANCE);
+		return (landmarks != null)
+				? GraphAlgos.runAStar(version.graph, ProfiledGraph.DISTANCE, from, to, landmarks)
+				: GraphAlgos.runDijsktra(version.graph, ProfiledGraph.DISTANCE, from, to);
+	}
+	
+	/**
+	 * Finds the walking distance from one location to each of several others with a single search
+	 * 
+	 * @param from : the location from which distances are measured
+	 * @param to   : the destination locations
+	 * @return an array where element i is the walking distance from from to to[i], or
+	 * 		Double.POSITIVE_INFINITY if there is no path between them (including the case that
+	 * 		either is not a location on this campus)
+	 */
+	public double[] distancesFrom(Point2D.Double from, List<Point2D.Double> to) {
+		ProfiledGraph<Point2D.Double> graph = g.current().graph;
+		int src = graph.indexOf(from);
+		double[] reachable = (src < 0) ? null
+				: GraphAlgos.distancesWithin(graph, ProfiledGraph.DISTANCE, src, Double.POSITIVE_INFINITY);
 		
-		Building a = buildings.get(start);
-		Building b = buildings.get(end);
-		return GraphAlgos.runDijsktra(g, a.location, b.location);
+		double[] distances = new double[to.size()];
+		for (int i = 0; i < distances.length; i++) {
+			int v = graph.indexOf(to.get(i));
+			distances[i] = (v < 0 || reachable == null) ? Double.POSITIVE_INFINITY : reachable[v];
+		}
+		return distances;
+	}
+	
+	/**
+	 * Identifies whether or not a location is an endpoint of some path segment on this CampusMap
+	 * 
+	 * @param location : the coordinates in question
+	 * @return true if location is on this CampusMap's paths, false otherwise
+	 */
+	public boolean hasLocation(Point2D.Double location) {
+		return g.current().graph.indexOf(location) >= 0;
+	}
+	
+	/**
+	 * Finds a polygon enclosing every location that can be reached on foot from a building within
+	 * some distance. The polygon is the convex hull of the reachable locations.
+	 * 
+	 * @param building : the abbreviation for the building to start from
+	 * @param limit    : the maximum walking distance
+	 * @return the corners of the enclosing polygon in order around its edge (fewer than three
+	 * 		corners if the reachable locations do not enclose any area). Returns null if building is
+	 * 		not on this campus
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	public List<Point2D.Double> reachableBoundary(String building, double limit) {
+		Map<Point2D.Double, Double> reachable = reachableFrom(building, limit);
+		if (reachable == null) return null;
+		return convexHull(new ArrayList<Point2D.Double>(reachable.keySet()));
 	}
 	
 	/**
 	 * Fetches a list of all buildings on this campus
 	 * 
-	 * @return a sorted list of abbreviated building names
+	 * @return a sorted, unmodifiable list of abbreviated building names
 	 */
 	public List<String> getBuildingAbbrevs() {
-		List<String> abbrevs = new ArrayList<String>(buildings.keySet());
-		Collections.sort(abbrevs);
-		return abbrevs;
+		return index.abbrevs();
+	}
+	
+	/**
+	 * Finds the buildings on this campus whose abbreviations or full names contain some text,
+	 * for example to suggest buildings as the user types
+	 * 
+	 * @param query : the text to look for, ignoring case
+	 * @param limit : the most buildings to return
+	 * @return the abbreviations of up to limit matching buildings, best matches first (see
+	 * 		BuildingIndex.search)
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	public List<String> searchBuildings(String query, int limit) {
+		return index.search(query, limit);
+	}
+	
+	/**
+	 * Finds the one building on this campus that some text names exactly, ignoring case
+	 * 
+	 * @param query : an abbreviation or full name
+	 * @return the abbreviation of that building, or null if query names no building or more
+	 * 		than one
+	 */
+	public String resolveBuilding(String query) {
+		return index.resolve(query);
 	}
 	
 	/**
@@ -106,9 +573,7 @@ public class CampusMap {
 	 * @return the distance between a and b
 	 */
 	public Double distanceBetween(Point2D.Double a, Point2D.Double b) {
-		List<Double> edges = new ArrayList<Double>(g.edgesBetween(a, b));
-		Collections.sort(edges); // shouldn't need to do this, but just to be sure
-		return edges.get(0);
+		return g.current().graph.weight(ProfiledGraph.DISTANCE, a, b);
 	}
 	
 	/**
@@ -121,6 +586,61 @@ public class CampusMap {
 		return buildings.containsKey(building);
 	}
 	
+	/**
+	 * Looks up the number of a weight profile
+	 * 
+	 * @param version : the version of this CampusMap's paths being used
+	 * @param profile : the name of a weight profile
+	 * @return the number of that profile in version
+	 * @throws IllegalArgumentException if profile is not a profile of version
+	 */
+	private static int profileNumber(VersionedGraph.Version<?> version, String profile) {
+		int p = version.graph.profile(profile);
+		if (p < 0) throw new IllegalArgumentException("Unknown profile: " + profile);
+		return p;
+	}
+	
+	/**
+	 * Computes the convex hull of a set of points using Andrew's monotone chain
+	 * 
+	 * @param points : the points to enclose
+	 * @modifies points
+	 * @effects sorts points by x, then y
+	 * @return the corners of the hull in order around its edge
+	 */
+	private static List<Point2D.Double> convexHull(List<Point2D.Double> points) {
+		Collections.sort(points, new Comparator<Point2D.Double>() {
+			@Override
+			public int compare(Point2D.Double a, Point2D.Double b) {
+				if (a.x != b.x) return Double.compare(a.x, b.x);
+				return Double.compare(a.y, b.y);
+			}
+		});
+		if (points.size() < 3) return points;
+		
+		Point2D.Double[] hull = new Point2D.Double[2 * points.size()];
+		int k = 0;
+		// lower hull
+		for (Point2D.Double p : points) {
+			while (k >= 2 && cross(hull[k - 2], hull[k - 1], p) <= 0) k--;
+			hull[k++] = p;
+		}
+		// upper hull
+		for (int i = points.size() - 2, lower = k + 1; i >= 0; i--) {
+			Point2D.Double p = points.get(i);
+			while (k >= lower && cross(hull[k - 2], hull[k - 1], p) <= 0) k--;
+			hull[k++] = p;
+		}
+		return new ArrayList<Point2D.Double>(Arrays.asList(hull).subList(0, k - 1));
+	}
+	
+	/**
+	 * @return the z component of the cross product of (a -> b) and (a -> c)
+	 */
+	private static double cross(Point2D.Double a, Point2D.Double b, Point2D.Double c) {
+		return (b.x - a.x) * (c.y - a.y) - (b.y - a.y) * (c.x - a.x);
+	}
+	
 	/**
 	 * Finds the compass direction to get from one point to another
 	 * 
@@ -61,8 +61,8 @@ public class CampusParser {
 
 				String shortName = tokens[0];
 				String longName = tokens[1];
-				Double x = Double.parseDouble(tokens[2]);
-				Double y = Double.parseDouble(tokens[3]);
+				double x = Double.parseDouble(tokens[2]);
+				double y = Double.parseDouble(tokens[3]);
 
 				// Create a new Building using parsed data and add mapping
 				buildings.put(shortName, new Building(longName, x, y));
@@ -121,8 +121,8 @@ public class CampusParser {
 				String[] tokens = inputLine.split(",");
 				if (tokens.length != 2) throw new MalformedDataException();
 
-				Double x = Double.parseDouble(tokens[0]);
-				Double y = Double.parseDouble(tokens[1]);
+				double x = Double.parseDouble(tokens[0]);
+				double y = Double.parseDouble(tokens[1]);
 				
 				// Create Point using parsed data and add mapping
 				Point2D.Double point = new Point2D.Double(x, y);
@@ -140,9 +140,9 @@ public class CampusParser {
 					// throw an exception for malformed lines
 					if (tokens.length != 3) throw new MalformedDataException();
 					
-					Double x_i = Double.parseDouble(tokens[0]);
-					Double y_i = Double.parseDouble(tokens[1]);
-					Double distance = Double.parseDouble(tokens[2]);
+					double x_i = Double.parseDouble(tokens[0]);
+					double y_i = Double.parseDouble(tokens[1]);
+					double distance = Double.parseDouble(tokens[2]);
 					
 					// Create Points using parsed data and add mapping
 					Point2D.Double point_i = new Point2D.Double(x_i, y_i);
@@ -166,4 +166,86 @@ public class CampusParser {
 		}
 		return paths;
 	}
+	
+	/**
+	 * Reads a list of regions. For each region, there should be a line in the file listing its
+	 * name, the file containing its building data and the file containing its path data, with a
+	 * single tab character separating each, followed by a tab-indented line for each of its
+	 * boundary locations:
+	 * 
+	 *	 name_1	buildings_1	paths_1
+	 *	 		x_1, y_1
+	 *	 		x_2, y_2
+	 *	 		...
+	 *	 ...
+	 * 
+	 * Data file names are relative to the directory containing the region file.
+	 * 
+	 * @param filename
+	 *            : the file that will be read
+	 * @return the regions, in the order they are listed
+	 * @throws MalformedDataException
+	 *             if the file is not well-formed: each region line contains
+	 *             exactly three tokens separated by tabs, each boundary line
+	 *             two coordinates separated by a comma, or else starting with
+	 *             a # symbol to indicate a comment line.
+	 */
+	public static List<Region> parseRegionData(String filename) throws MalformedDataException {
+		BufferedReader reader = null;
+		List<Region> regions = new ArrayList<Region>();
+		File directory = new File(filename).getAbsoluteFile().getParentFile();
+		try {
+			reader = new BufferedReader(new FileReader(filename));
+
+			String inputLine = reader.readLine();
+			while (inputLine != null) {
+
+				// Ignore comment lines.
+				if (inputLine.startsWith("#")) {
+					inputLine = reader.readLine();
+					continue;
+				}
+
+				// Parse the data, throwing an exception for malformed lines.
+				String[] tokens = inputLine.split("\t");
+				if (tokens.length != 3) 
+					throw new MalformedDataException("Missing tabs and/or data: " + inputLine);
+
+				String name = tokens[0];
+				String buildings = new File(directory, tokens[1]).getPath();
+				String paths = new File(directory, tokens[2]).getPath();
+				
+				// take care of the region's boundary locations
+				List<Point2D.Double> boundary = new ArrayList<Point2D.Double>();
+				inputLine = reader.readLine();
+				while (inputLine != null && inputLine.startsWith("\t")) {
+					tokens = inputLine.trim().split(",");
+					if (tokens.length != 2)
+						throw new MalformedDataException("Malformed boundary location: " + inputLine);
+					
+					double x = Double.parseDouble(tokens[0].trim());
+					double y = Double.parseDouble(tokens[1].trim());
+					boundary.add(new Point2D.Double(x, y));
+					
+					inputLine = reader.readLine();
+				}
+				regions.add(new Region(name, buildings, paths, boundary));
+			}
+		} catch (IOException e) {
+			System.err.println(e.toString());
+			e.printStackTrace(System.err);
+		} catch (NumberFormatException e) {
+			throw new MalformedDataException(e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					System.err.println(e.toString());
+					e.printStackTrace(System.err);
+				}
+			}
+		}
+		return regions;
+	}
 }
@@ -3,32 +3,42 @@ package chiefarch;
 import java.awt.BasicStroke;
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GridBagLayout;
 import java.awt.Image;
 import java.awt.LayoutManager;
 import java.awt.Rectangle;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.Polygon;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImageObserver;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import chiefarch.CampusMap;
 import chiefarch.CampusParser.MalformedDataException;
 
-import javafx.scene.shape.Circle;
-
 
 /**
  * CampusPathsMain serves as main and generates GUI
@@ -42,6 +52,9 @@ public class CampusPathsMain {
 	private static final String BUILDINGS_PATH = DATA_PATH + "campus_buildings.dat";
 	private static final String PATHS_PATH = DATA_PATH + "campus_paths.dat";
 	
+	// number of landmarks used to speed up route searches
+	private static final int LANDMARKS = 8;
+	
 	/**
 	 * MapPanel is a panel that represents a map and a path on said map
 	 * 
@@ -49,7 +62,13 @@ public class CampusPathsMain {
 	 */
 	private static class MapPanel extends JPanel {
 		
-		private List<Point2D.Double> path;
+		// how far, in screen pixels, a drawn route may stray from the true route
+		private static final double PIXEL_TOLERANCE = 1.0;
+		
+		private RouteGeometry path;
+		private List<Point2D.Double> region;
+		private SearchTrace trace;
+		private int traceSteps;
 		private Image map;
 		
 		/**
@@ -69,9 +88,9 @@ public class CampusPathsMain {
 		/**
 		 * Sets a new path for this MapPanel
 		 * 
-		 * @param path : the path to eventually be drawn
+		 * @param path : the path to eventually be drawn, starting at its starting building
 		 */
-		public void setPath(List<Point2D.Double> path) {
+		public void setPath(RouteGeometry path) {
 			this.path = path;
 		}
 		
@@ -80,6 +99,32 @@ public class CampusPathsMain {
 		 */
 		public void clearPath() { path = null; }
 		
+		/**
+		 * Sets a new region to be shaded on this MapPanel
+		 * 
+		 * @param region : the corners of the polygon to eventually be shaded
+		 */
+		public void setRegion(List<Point2D.Double> region) {
+			this.region = region;
+		}
+		
+		/**
+		 * Clears the region stored in this MapPanel
+		 */
+		public void clearRegion() { region = null; }
+		
+		/**
+		 * Sets a search trace to be replayed on this MapPanel
+		 * 
+		 * @param trace : a trace read from a file, whose nodes are drawn at their locations
+		 * @param steps : how many of the nodes settled in trace to draw, along with the edges
+		 * 		relaxed from them
+		 */
+		public void setTrace(SearchTrace trace, int steps) {
+			this.trace = trace;
+			this.traceSteps = steps;
+		}
+		
 		@Override
 		protected void paintComponent(Graphics g) {
 			super.paintComponent(g);
@@ -88,23 +133,55 @@ public class CampusPathsMain {
 			// draw map
 			g2d.drawImage(map, 0, 0, this.getWidth(), this.getHeight(), this);                      
 			
-			// draw path (if there is one to be drawn)
-			if (path == null) return;
-			
 			// account for aspect ratio of this MapPanel
 			double xFactor = (double) this.getWidth() / map.getWidth(this);
 			double yFactor = (double) this.getHeight() / map.getHeight(this);
 			double compFactor = (double) (this.getWidth() + this.getHeight())
 					/ (map.getWidth(this) + map.getHeight(this));
 			
-			// make sure our lines can be easily seen
-			g2d.setStroke(new BasicStroke((int) Math.round(13 * compFactor)));
+			// shade region (if there is one to be shaded)
+			if (region != null && region.size() >= 3) {
+				Polygon polygon = new Polygon();
+				for (Point2D.Double corner : region)
+					polygon.addPoint((int) Math.round(corner.x * xFactor),
+							(int) Math.round(corner.y * yFactor));
+				g2d.setColor(new Color(0, 128, 255, 80));
+				g2d.fillPolygon(polygon);
+			}
+			
+			// replay trace (if there is one to be replayed)
+			if (trace != null) {
+				List<Point2D.Double> locations = trace.locations();
+				g2d.setStroke(new BasicStroke(1));
+				for (int i = 0; i < traceSteps; i++) {
+					Point2D.Double from = locations.get(trace.settledNode(i));
+					int from_x = (int) Math.round(from.x * xFactor);
+					int from_y = (int) Math.round(from.y * yFactor);
+					g2d.setColor(Color.CYAN);
+					for (int w : trace.relaxedFrom(i)) {
+						Point2D.Double to = locations.get(w);
+						g2d.drawLine(from_x, from_y, (int) Math.round(to.x * xFactor),
+								(int) Math.round(to.y * yFactor));
+					}
+					g2d.setColor((i == traceSteps - 1) ? Color.RED : Color.ORANGE);
+					int dot = (i == traceSteps - 1) ? 9 : 5;
+					g2d.fillOval(from_x - dot / 2, from_y - dot / 2, dot, dot);
+				}
+			}
+			
+			// draw path (if there is one to be drawn)
+			if (path == null || path.size() == 0) return;
+			
+			// make sure our lines can be easily seen (rounding the joins between them)
+			g2d.setStroke(new BasicStroke((int) Math.round(13 * compFactor), BasicStroke.CAP_ROUND,
+					BasicStroke.JOIN_ROUND));
 			g2d.setColor(Color.MAGENTA);
 			
 			// draw circles for starting and ending points
 			int size = (int) Math.round(35 * compFactor);
-			Point2D.Double src = path.get(0);
-			Point2D.Double dest = path.get(path.size() - 1);
+			List<Point2D.Double> points = path.points();
+			Point2D.Double src = points.get(0);
+			Point2D.Double dest = points.get(points.size() - 1);
 			int src_x = (int) Math.round(src.x * xFactor);
 			int src_y = (int) Math.round(src.y * yFactor);
 			int dest_x = (int) Math.round(dest.x * xFactor);
@@ -112,16 +189,214 @@ public class CampusPathsMain {
 			g2d.fillOval(src_x - size / 2, src_y - size / 2, size, size);
 			g2d.fillOval(dest_x - size / 2, dest_y - size / 2, size, size);
 			
-			// draw lines to make path
-			for (int i = 0; i < path.size() - 1; i++) {
-				src = path.get(i);
-				dest = path.get(i + 1);
-				src_x = (int) Math.round(src.x * xFactor);
-				src_y = (int) Math.round(src.y * yFactor);
-				dest_x = (int) Math.round(dest.x * xFactor);
-				dest_y = (int) Math.round(dest.y * yFactor);
-				g2d.drawLine(src_x, src_y, dest_x, dest_y);
+			// drop points too close to the line to show at this size, then draw the rest as one
+			// polyline; the tolerance is rounded so that the simplified path is reused from one
+			// repaint to the next until the panel is resized noticeably. While the map image is
+			// still loading (or missing) its size is unknown, so the path is drawn unsimplified
+			double pixelsPerUnit = Math.min(xFactor, yFactor);
+			if (pixelsPerUnit > 0 && !Double.isInfinite(pixelsPerUnit)) {
+				double tolerance = PIXEL_TOLERANCE / pixelsPerUnit;
+				tolerance = Math.pow(2, Math.floor(Math.log(tolerance) / Math.log(2) * 4) / 4);
+				points = path.simplifyCached(tolerance).points();
 			}
+			
+			Path2D.Double line = new Path2D.Double();
+			line.moveTo(points.get(0).x * xFactor, points.get(0).y * yFactor);
+			for (int i = 1; i < points.size(); i++)
+				line.lineTo(points.get(i).x * xFactor, points.get(i).y * yFactor);
+			g2d.draw(line);
+		}
+	}
+	
+	/**
+	 * BuildingBox is an editable JComboBox used to pick a building, which suggests buildings
+	 * matching whatever has been typed into it so far
+	 */
+	private static class BuildingBox extends JComboBox<String> implements DocumentListener {
+		private static final long serialVersionUID = 1L;
+		private static final int SUGGESTIONS = 20; // most buildings suggested at once
+		
+		private CampusMap campusMap;
+		private JTextField editor;
+		private boolean updating; // whether the typed text is being changed by this BuildingBox
+		
+		/**
+		 * Creates a new BuildingBox, starting at the first building on campus
+		 * 
+		 * @param campusMap : the model to refer to
+		 */
+		public BuildingBox(final CampusMap campusMap) {
+			this.campusMap = campusMap;
+			this.setEditable(true);
+			this.setRenderer(new DefaultListCellRenderer() {
+				@Override
+				public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+						boolean isSelected, boolean cellHasFocus) {
+					String text = (value == null) ? "" : value.toString();
+					if (campusMap.hasBuilding(text)) text += ": " + campusMap.getFullName(text);
+					return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+				}
+			});
+			this.editor = (JTextField) this.getEditor().getEditorComponent();
+			editor.getDocument().addDocumentListener(this);
+			reset();
+		}
+		
+		/**
+		 * @return the abbreviation for the building named (or uniquely matched) by the text typed
+		 * 		in, or null if the text picks out no single building
+		 */
+		public String getBuilding() {
+			String text = editor.getText();
+			String building = campusMap.resolveBuilding(text);
+			if (building != null) return building;
+			List<String> matches = campusMap.searchBuildings(text, 2);
+			return (matches.size() == 1) ? matches.get(0) : null;
+		}
+		
+		/**
+		 * Goes back to the first building on campus
+		 */
+		public void reset() {
+			List<String> buildings = campusMap.getBuildingAbbrevs();
+			suggest(buildings.isEmpty() ? "" : buildings.get(0), "");
+		}
+		
+		/**
+		 * Sets the typed text, and offers the buildings matching a query as suggestions
+		 * 
+		 * @param text  : the text typed in
+		 * @param query : the text to find suggestions for
+		 */
+		private void suggest(String text, String query) {
+			updating = true;
+			DefaultComboBoxModel<String> model = new DefaultComboBoxModel<String>(
+					campusMap.searchBuildings(query, SUGGESTIONS).toArray(new String[0]));
+			model.setSelectedItem(text); // keep what was typed rather than the first suggestion
+			this.setModel(model);
+			if (!editor.getText().equals(text)) editor.setText(text);
+			updating = false;
+			
+			// suggest nothing more once the text names a building (say, after picking a suggestion)
+			if (editor.hasFocus() && model.getSize() > 0 && campusMap.resolveBuilding(text) == null) {
+				this.hidePopup(); // so that the popup resizes to the new suggestions
+				this.showPopup();
+			}
+		}
+		
+		/**
+		 * Updates the suggestions once the text being typed has finished changing
+		 */
+		private void textChanged() {
+			if (updating) return;
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					suggest(editor.getText(), editor.getText());
+				}
+			});
+		}
+		
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			textChanged();
+		}
+		
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			textChanged();
+		}
+		
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+			textChanged();
+		}
+	}
+	
+	/**
+	 * Query is a question for the map that is answered off the event dispatch thread
+	 *
+	 * @param <T> : the type of the answer
+	 */
+	private static abstract class Query<T> {
+		/**
+		 * Answers this query. Runs on a background thread, so must not touch any component.
+		 * 
+		 * @return the answer
+		 */
+		public abstract T compute();
+		
+		/**
+		 * Shows the answer to this query. Runs on the event dispatch thread.
+		 * 
+		 * @param answer : the answer computed
+		 * @param millis : how long computing it took, in milliseconds
+		 */
+		public abstract void show(T answer, double millis);
+	}
+	
+	/**
+	 * Queries runs queries one after another on background threads, so that the GUI stays
+	 * responsive however long they take. Starting a query cancels the one before it if that one
+	 * has not finished, so only the latest answer is ever shown. A search already under way runs
+	 * to completion (it may be shared with other callers; see CampusMap.route) but its answer is
+	 * dropped.
+	 */
+	private static class Queries {
+		private JLabel status;
+		private SwingWorker<?, ?> current;
+		
+		/**
+		 * Creates a new Queries
+		 * 
+		 * @param status : the label on which to report queries that fail
+		 */
+		public Queries(JLabel status) {
+			this.status = status;
+		}
+		
+		/**
+		 * Starts a query, cancelling the one before it. Must be called on the event dispatch
+		 * thread.
+		 * 
+		 * @param query : the query to run
+		 */
+		public <T> void start(final Query<T> query) {
+			cancel();
+			SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+				private long nanos;
+				
+				@Override
+				protected T doInBackground() {
+					long start = System.nanoTime();
+					T answer = query.compute();
+					nanos = System.nanoTime() - start;
+					return answer;
+				}
+				
+				@Override
+				protected void done() {
+					if (isCancelled() || current != this) return;
+					current = null;
+					try {
+						query.show(get(), nanos / 1e6);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt(); // cannot happen once done
+					} catch (ExecutionException e) {
+						status.setText("Query failed: " + e.getCause());
+					}
+				}
+			};
+			current = worker;
+			worker.execute();
+		}
+		
+		/**
+		 * Cancels the query running, if any, so that its answer is never shown
+		 */
+		public void cancel() {
+			if (current != null) current.cancel(true);
+			current = null;
 		}
 	}
 	
@@ -133,8 +408,10 @@ public class CampusPathsMain {
 	private static class PathButton extends JButton implements ActionListener {
 		private CampusMap campusMap;
 		private MapPanel mapPanel;
-		private JComboBox startList;
-		private JComboBox endList;
+		private BuildingBox startList;
+		private BuildingBox endList;
+		private JLabel status;
+		private Queries queries;
 		
 		/**
 		 * Creates a new PathButton
@@ -143,25 +420,130 @@ public class CampusPathsMain {
 		 * @param mapPanel  : the panel on which the map is displayed
 		 * @param startList : the component used to select the starting point
 		 * @param endList   : the component used to select the ending point
+		 * @param status    : the label on which to report how each search went and how long it took
 		 */
-		public PathButton(CampusMap campusMap, MapPanel mapPanel, JComboBox startList,
-				JComboBox endList) {
+		public PathButton(CampusMap campusMap, MapPanel mapPanel, BuildingBox startList,
+				BuildingBox endList, JLabel status) {
 			super("Find path!");
 			this.addActionListener(this);
 			this.campusMap = campusMap;
 			this.mapPanel = mapPanel;
 			this.startList = startList;
 			this.endList = endList;
+			this.status = status;
+			this.queries = new Queries(status);
 		} 
+		
+		/**
+		 * Cancels the search running, if any, so that its path is never drawn
+		 */
+		public void cancel() {
+			queries.cancel();
+		}
 
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			String start = (String) startList.getSelectedItem();
-			String end = (String) endList.getSelectedItem();
-			List<Point2D.Double> path = campusMap.findRoute(start, end);
-			path.add(0, campusMap.locationOf(start));
-			mapPanel.setPath(path);
-			mapPanel.repaint();
+			final String start = startList.getBuilding();
+			final String end = endList.getBuilding();
+			if (start == null || end == null) {
+				queries.cancel();
+				status.setText("Choose a building for each end");
+				mapPanel.clearPath();
+				mapPanel.repaint();
+				return;
+			}
+			
+			status.setText("Finding a path from " + start + " to " + end + "...");
+			queries.start(new Query<RouteGeometry>() {
+				@Override
+				public RouteGeometry compute() {
+					return campusMap.findRouteGeometry(start, end);
+				}
+				
+				@Override
+				public void show(RouteGeometry route, double millis) {
+					if (route == null)
+						status.setText(String.format("No path from %s to %s (%.1f ms)", start, end, millis));
+					else
+						status.setText(String.format("%.0f feet from %s to %s (found in %.1f ms)",
+								route.length(), start, end, millis));
+					mapPanel.setPath(route);
+					mapPanel.repaint();
+				}
+			});
+		}
+	}
+	
+	
+	/**
+	 * ReachSlider is a JSlider used to shade the area within walking distance of the starting point
+	 */
+	private static class ReachSlider extends JSlider implements ChangeListener, ActionListener {
+		private static final long serialVersionUID = 1L;
+		private static final int MAX_DISTANCE = 3000; // in feet
+		
+		private CampusMap campusMap;
+		private MapPanel mapPanel;
+		private BuildingBox startList;
+		private JLabel status;
+		private Queries queries;
+		
+		/**
+		 * Creates a new ReachSlider
+		 * 
+		 * @param campusMap : the model to refer to
+		 * @param mapPanel  : the panel on which the map is displayed
+		 * @param startList : the component used to select the starting point
+		 * @param status    : the label on which to report how long shading took
+		 */
+		public ReachSlider(CampusMap campusMap, MapPanel mapPanel, BuildingBox startList, JLabel status) {
+			super(0, MAX_DISTANCE, 0);
+			this.setToolTipText("Shade everything within this many feet of the starting point");
+			this.campusMap = campusMap;
+			this.mapPanel = mapPanel;
+			this.startList = startList;
+			this.status = status;
+			this.queries = new Queries(status);
+			this.addChangeListener(this);
+			startList.addActionListener(this);
+		}
+		
+		/**
+		 * Recomputes the shaded region for the current starting point and distance
+		 */
+		private void updateRegion() {
+			final String start = startList.getBuilding();
+			final int limit = this.getValue();
+			if (limit == 0 || start == null) {
+				queries.cancel();
+				mapPanel.clearRegion();
+				mapPanel.repaint();
+				return;
+			}
+			
+			queries.start(new Query<List<Point2D.Double>>() {
+				@Override
+				public List<Point2D.Double> compute() {
+					return campusMap.reachableBoundary(start, limit);
+				}
+				
+				@Override
+				public void show(List<Point2D.Double> region, double millis) {
+					status.setText(String.format("Shaded %d feet around %s (in %.1f ms)", limit, start, millis));
+					mapPanel.setRegion(region);
+					mapPanel.repaint();
+				}
+			});
+		}
+		
+		@Override
+		public void stateChanged(ChangeEvent e) {
+			updateRegion();
+		}
+		
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			updateRegion();
 		}
 	}
 	
@@ -173,61 +555,252 @@ public class CampusPathsMain {
 	 */
 	private static class ResetButton extends JButton implements ActionListener {
 		private MapPanel mapPanel;
-		private JComboBox startList;
-		private JComboBox endList;
+		private BuildingBox startList;
+		private BuildingBox endList;
+		private PathButton pathButton;
+		private ReachSlider reachSlider;
+		private JLabel status;
 		
 		/**
 		 * Creates a new ResetButton
 		 * 
 		 * @param mapPanel : the panel on which the map is displayed
 		 */
-		public ResetButton(MapPanel mapPanel, JComboBox startList, JComboBox endList) {
+		public ResetButton(MapPanel mapPanel, BuildingBox startList, BuildingBox endList,
+				PathButton pathButton, ReachSlider reachSlider, JLabel status) {
 			super("Reset");
 			this.mapPanel = mapPanel;
+			this.pathButton = pathButton;
+			this.status = status;
 			this.startList = startList;
 			this.endList = endList;
+			this.reachSlider = reachSlider;
 			this.addActionListener(this);
 		}
 
 		@Override
 		public void actionPerformed(ActionEvent e) {
+			pathButton.cancel();
 			mapPanel.clearPath();
-			startList.setSelectedIndex(0);
-			endList.setSelectedIndex(0);
+			startList.reset();
+			endList.reset();
+			reachSlider.setValue(0);
+			status.setText("");
 			mapPanel.repaint();
 		}
 	}
 
 	
-	public static void main(String[] args) {
-		// initialize new CampusMap
-		CampusMap campusMap;
+	/**
+	 * ReplaySlider is a JSlider used to step through a search trace, playing it back on its own
+	 * until it reaches the end
+	 */
+	private static class ReplaySlider extends JSlider implements ChangeListener, ActionListener {
+		private static final long serialVersionUID = 1L;
+		private static final int FRAME_MILLIS = 20;
+		private static final int FRAMES = 300; // length of the playback in frames
+		
+		private SearchTrace trace;
+		private MapPanel mapPanel;
+		private JLabel status;
+		private Timer timer;
+		
+		/**
+		 * Creates a new ReplaySlider and starts playing back trace
+		 * 
+		 * @param trace    : the trace to replay
+		 * @param mapPanel : the panel on which the map is displayed
+		 * @param status   : the label used to describe the current step
+		 */
+		public ReplaySlider(SearchTrace trace, MapPanel mapPanel, JLabel status) {
+			super(0, trace.settledCount(), 0);
+			this.setToolTipText("Drag to step through the search");
+			this.trace = trace;
+			this.mapPanel = mapPanel;
+			this.status = status;
+			this.addChangeListener(this);
+			this.timer = new Timer(FRAME_MILLIS, this);
+			stateChanged(null);
+			timer.start();
+		}
+		
+		@Override
+		public void stateChanged(ChangeEvent e) {
+			int steps = this.getValue();
+			int frontier = (steps == 0) ? 0 : trace.frontierSize(steps - 1);
+			status.setText(String.format("%d / %d settled, frontier %d (max %d)", steps,
+					trace.settledCount(), frontier, trace.maxFrontierSize()));
+			mapPanel.setTrace(trace, steps);
+			mapPanel.repaint();
+		}
+		
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			// stop playing once the user takes over or the end is reached
+			if (this.getValueIsAdjusting() || this.getValue() == this.getMaximum()) {
+				timer.stop();
+				return;
+			}
+			this.setValue(this.getValue() + Math.max(1, this.getMaximum() / FRAMES));
+		}
+	}
+	
+	/**
+	 * MapLoader loads the campus map on a background thread, reporting each stage on a progress
+	 * bar, and fills the window with the map once it is ready
+	 */
+	private static class MapLoader extends SwingWorker<CampusMap, String> implements PropertyChangeListener {
+		private JFrame frame;
+		private JProgressBar progress;
+		
+		/**
+		 * Creates a new MapLoader
+		 * 
+		 * @param frame    : the window to fill with the map
+		 * @param progress : the bar on which to report progress
+		 */
+		public MapLoader(JFrame frame, JProgressBar progress) {
+			this.frame = frame;
+			this.progress = progress;
+			this.addPropertyChangeListener(this);
+		}
+		
+		@Override
+		protected CampusMap doInBackground() throws MalformedDataException {
+			publish("Reading buildings and paths...");
+			// the GUI adds no profiles, so it can store two-way paths once and check for one-way ones
+			CampusMap campusMap = new CampusMap(BUILDINGS_PATH, PATHS_PATH, true);
+			setProgress(60);
+			publish("Computing landmarks...");
+			campusMap.useLandmarks(LANDMARKS);
+			setProgress(90);
+			publish("Checking paths...");
+			for (Map.Entry<Point2D.Double, Point2D.Double> path : campusMap.getAsymmetricPaths())
+				System.err.println("Warning: one-way path from " + path.getKey() + " to " + path.getValue());
+			for (Map.Entry<String, Integer> building : campusMap.getStrandedBuildings().entrySet())
+				System.err.println("Warning: building " + building.getKey() + " is stranded in a component of "
+						+ building.getValue() + " locations");
+			setProgress(100);
+			return campusMap;
+		}
+		
+		@Override
+		protected void process(List<String> stages) {
+			progress.setString(stages.get(stages.size() - 1));
+		}
+		
+		@Override
+		public void propertyChange(PropertyChangeEvent e) {
+			if (e.getPropertyName().equals("progress")) progress.setValue((Integer) e.getNewValue());
+		}
+		
+		@Override
+		protected void done() {
+			try {
+				showMap(frame, get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt(); // cannot happen once done
+			} catch (ExecutionException e) {
+				System.err.println("Bad building/paths file(s): " + e.getCause().getMessage());
+				progress.setString("Could not load the map: " + e.getCause().getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Opens a window replaying a search trace over the map
+	 * 
+	 * @param filename : the file holding the trace (see CampusPaths --trace)
+	 */
+	private static void replay(final String filename) {
+		final SearchTrace trace;
 		try {
-			campusMap = new CampusMap(BUILDINGS_PATH, PATHS_PATH);
-		} catch (MalformedDataException e) {
-			System.out.println("Bad building/paths file(s)");
+			InputStream in = new BufferedInputStream(new FileInputStream(filename));
+			trace = SearchTrace.read(in);
+			in.close();
+		} catch (IOException e) {
+			System.err.println("Bad trace file: " + e.getMessage());
 			return;
 		}
-		List<String> buildings = campusMap.getBuildingAbbrevs();
 		
-		// initialize top-level container
-		JFrame frame = new JFrame("Campus Path Finder");
-		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		frame.setSize(1024, 768);
+		// the trace is read here, but the window is built on the event dispatch thread
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				JFrame frame = new JFrame("Campus Path Finder - " + filename);
+				frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+				frame.setSize(1024, 768);
+				
+				MapPanel mapPanel = new MapPanel(DATA_PATH + "campus_map.jpg");
+				JPanel menu = new JPanel();
+				JLabel status = new JLabel();
+				menu.add(new ReplaySlider(trace, mapPanel, status));
+				menu.add(status);
+				
+				JPanel contentPane = new JPanel(new BorderLayout());
+				contentPane.add(mapPanel, BorderLayout.CENTER);
+				contentPane.add(menu, BorderLayout.SOUTH);
+				frame.setContentPane(contentPane);
+				frame.setVisible(true);
+			}
+		});
+	}
+	
+	/**
+	 * Runs the GUI. With "--replay file", replays a search trace written by CampusPaths instead.
+	 * 
+	 * @param args : command line arguments
+	 */
+	public static void main(String[] args) {
+		if (args.length == 2 && args[0].equals("--replay")) {
+			replay(args[1]);
+			return;
+		}
 		
+		// show the window at once, with a progress bar until the map has loaded; Swing components
+		// are made and shown on the event dispatch thread only
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				JFrame frame = new JFrame("Campus Path Finder");
+				frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+				frame.setSize(1024, 768);
+				JProgressBar progress = new JProgressBar(0, 100);
+				progress.setStringPainted(true);
+				JPanel loading = new JPanel(new GridBagLayout());
+				loading.add(progress);
+				frame.setContentPane(loading);
+				frame.setVisible(true);
+				
+				new MapLoader(frame, progress).execute();
+			}
+		});
+	}
+	
+	/**
+	 * Fills a window with the map and the controls for finding routes on it
+	 * 
+	 * @param frame     : the window to fill
+	 * @param campusMap : the model to refer to
+	 */
+	private static void showMap(JFrame frame, CampusMap campusMap) {
 		// create panel for map and paths
 		MapPanel mapPanel = new MapPanel(DATA_PATH + "campus_map.jpg");
 		
 		// create panel for menu and add buttons
 		JPanel menu = new JPanel();
-		JComboBox startList = new JComboBox(buildings.toArray());
-		JComboBox endList = new JComboBox(buildings.toArray());
-		PathButton pathButton = new PathButton(campusMap, mapPanel, startList, endList);
-		ResetButton resetButton = new ResetButton(mapPanel, startList, endList);
+		BuildingBox startList = new BuildingBox(campusMap);
+		BuildingBox endList = new BuildingBox(campusMap);
+		JLabel status = new JLabel();
+		PathButton pathButton = new PathButton(campusMap, mapPanel, startList, endList, status);
+		ReachSlider reachSlider = new ReachSlider(campusMap, mapPanel, startList, status);
+		ResetButton resetButton = new ResetButton(mapPanel, startList, endList, pathButton, reachSlider, status);
 		menu.add(startList);
 		menu.add(endList);
 		menu.add(pathButton);
+		menu.add(reachSlider);
 		menu.add(resetButton);
+		menu.add(status);
 		
 		
 		// create content pane
@@ -235,8 +808,7 @@ public class CampusPathsMain {
 		contentPane.add(mapPanel, BorderLayout.CENTER);
 		contentPane.add(menu, BorderLayout.SOUTH);
 		frame.setContentPane(contentPane);
-		
-		// make visible after doing all the work
-		frame.setVisible(true);
+		frame.revalidate();
+		frame.repaint();
 	}
 }
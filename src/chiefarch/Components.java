@@ -0,0 +1,185 @@
+package chiefarch;
+
+import java.util.Arrays;
+
+/**
+ * Components labels every node of a ProfiledGraph with the strongly connected component it
+ * belongs to (the largest set of nodes around it that can all reach one another), so that a
+ * search between nodes that cannot reach each other can be turned down without exploring the
+ * graph. In a graph whose edges all run both ways, these are simply its connected components.
+ *
+ * Components are found by an iterative version of Tarjan's algorithm, which numbers them in the
+ * order it finishes them. Tarjan's algorithm finishes a component only after every component it
+ * has an edge to, so a node can reach only nodes whose components are numbered no higher than its
+ * own. Together with labels for the weakly connected components (those of the graph with its edges
+ * taken as two-way), this rules out most unreachable pairs of a directed graph, and all of them
+ * for a graph whose edges run both ways, in constant time.
+ *
+ * Components is immutable.
+ *
+ * Abstraction Function:
+ * 		Node v belongs to strongly connected component strong[v], which has sizes[strong[v]] nodes,
+ * 			and to weakly connected component weak[v]
+ * 		largest is the number of a component with the most nodes (-1 for an empty graph)
+ *
+ * Representation Invariant:
+ * 		strong.length == weak.length
+ * 		0 <= strong[v] < sizes.length for every v, and sizes[c] is the number of v with
+ * 			strong[v] == c
+ * 		an edge from u to v implies strong[u] >= strong[v] and weak[u] == weak[v]
+ */
+public class Components {
+
+	private final int[] strong;
+	private final int[] weak;
+	private final int[] sizes;
+	private final int largest;
+	
+	/**
+	 * Labels the components of a graph
+	 *
+	 * @param g : the graph to label; only which edges it has matters, not what they weigh
+	 */
+	public Components(ProfiledGraph<?> g) {
+		int n = g.size();
+		strong = new int[n];
+		int count = 0;
+		
+		// Tarjan's algorithm, with the recursion kept on an explicit stack of (node, next edge)
+		int[] index = new int[n];
+		int[] low = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] stack = new int[n]; // nodes visited but not yet assigned a component
+		int[] callNode = new int[n];
+		int[] callEdge = new int[n];
+		Arrays.fill(index, -1);
+		int visited = 0;
+		int top = 0;
+		for (int root = 0; root < n; root++) {
+			if (index[root] >= 0) continue;
+			int depth = 0;
+			index[root] = low[root] = visited++;
+			stack[top++] = root;
+			onStack[root] = true;
+			callNode[depth] = root;
+			callEdge[depth++] = g.edgeStart(root);
+			
+			while (depth > 0) {
+				int v = callNode[depth - 1];
+				int e = callEdge[depth - 1];
+				if (e < g.edgeEnd(v)) {
+					callEdge[depth - 1]++;
+					int w = g.target(e);
+					if (index[w] < 0) {
+						index[w] = low[w] = visited++;
+						stack[top++] = w;
+						onStack[w] = true;
+						callNode[depth] = w;
+						callEdge[depth++] = g.edgeStart(w);
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+				
+				// every edge from v has been followed
+				depth--;
+				if (low[v] == index[v]) {
+					int w;
+					do {
+						w = stack[--top];
+						onStack[w] = false;
+						strong[w] = count;
+					} while (w != v);
+					count++;
+				}
+				if (depth > 0) {
+					int parent = callNode[depth - 1];
+					low[parent] = Math.min(low[parent], low[v]);
+				}
+			}
+		}
+		
+		sizes = new int[count];
+		for (int v = 0; v < n; v++)
+			sizes[strong[v]]++;
+		int biggest = -1;
+		for (int c = 0; c < count; c++)
+			if (biggest < 0 || sizes[c] > sizes[biggest]) biggest = c;
+		largest = biggest;
+		
+		// weakly connected components, by union-find over every edge
+		weak = new int[n];
+		for (int v = 0; v < n; v++)
+			weak[v] = v;
+		for (int u = 0; u < n; u++) {
+			for (int e = g.edgeStart(u); e < g.edgeEnd(u); e++) {
+				int a = find(weak, u);
+				int b = find(weak, g.target(e));
+				if (a != b) weak[Math.max(a, b)] = Math.min(a, b);
+			}
+		}
+		for (int v = 0; v < n; v++)
+			weak[v] = find(weak, v);
+	}
+	
+	/**
+	 * @return the root of the union-find tree holding v, halving the path to it along the way
+	 */
+	private static int find(int[] parent, int v) {
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+	
+	/**
+	 * @return the number of strongly connected components
+	 */
+	public int count() {
+		return sizes.length;
+	}
+	
+	/**
+	 * @param v : the number of a node
+	 * @return the number of the strongly connected component v belongs to
+	 */
+	public int component(int v) {
+		return strong[v];
+	}
+	
+	/**
+	 * @param c : the number of a strongly connected component
+	 * @return the number of nodes in component c
+	 */
+	public int size(int c) {
+		return sizes[c];
+	}
+	
+	/**
+	 * @return the number of the strongly connected component with the most nodes (the lowest
+	 * 		numbered of them, if several tie), or -1 if the graph has no nodes
+	 */
+	public int largest() {
+		return largest;
+	}
+	
+	/**
+	 * Tells in constant time whether there may be a path from one node to another. A false
+	 * answer is always right; a true answer is always right when every edge of the graph runs
+	 * both ways, and otherwise means only that a search is needed to be sure.
+	 *
+	 * @param u : the number of the node a path would start at
+	 * @param v : the number of the node a path would end at
+	 * @return false if there is certainly no path from u to v, true otherwise
+	 */
+	public boolean mayReach(int u, int v) {
+		return weak[u] == weak[v] && strong[u] >= strong[v];
+	}
+	
+	@Override
+	public String toString() {
+		return sizes.length + " components, the largest of " + ((largest < 0) ? 0 : sizes[largest]) + " nodes";
+	}
+}
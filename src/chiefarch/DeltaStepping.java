@@ -0,0 +1,265 @@
+package chiefarch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * DeltaStepping finds the cost of the cheapest path from one node of a ProfiledGraph to every
+ * other, spreading the work of each step over a pool of threads.
+ *
+ * Tentative costs are kept in buckets of width delta. The lowest nonempty bucket is emptied in
+ * phases: each phase relaxes, in parallel, the light edges (weighing at most delta) of every node
+ * in the bucket, which may put nodes back into it. Once it stays empty, every cost in it is final
+ * and the heavy edges of the nodes it held are relaxed in parallel as well. Costs are lowered by
+ * compare-and-set, so threads never lock one another out.
+ *
+ * Every cost is the sum of the edge weights along a cheapest path, added one at a time from the
+ * source on, and the smallest such sum wins no matter which thread finds it first. The costs are
+ * therefore exactly those sequential Dijkstra finds.
+ */
+final class DeltaStepping {
+
+	// fewest nodes in a phase for it to be split among threads; smaller phases run on the caller
+	private static final int PARALLEL_THRESHOLD = 512;
+	
+	// tasks each thread's share of a phase is cut into, to even out uneven degrees
+	private static final int TASKS_PER_THREAD = 4;
+	
+	private DeltaStepping() {
+	}
+	
+	/**
+	 * Finds the cost of the cheapest path from one node to every node
+	 *
+	 * @param g       : the graph to search
+	 * @param profile : the weight profile of g to measure path costs with
+	 * @param src     : the number of the node to search from
+	 * @param delta   : the width of each bucket, in units of cost
+	 * @param pool    : the threads to search with
+	 * @return an array where element v is the cost of the cheapest path from src to node v, or
+	 * 		Double.POSITIVE_INFINITY if there is no path
+	 */
+	static double[] distances(ProfiledGraph<?> g, int profile, int src, double delta, ForkJoinPool pool) {
+		int n = g.size();
+		AtomicLongArray dist = new AtomicLongArray(n);
+		long infinity = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+		for (int v = 0; v < n; v++)
+			dist.set(v, infinity);
+		dist.set(src, Double.doubleToRawLongBits(0.0));
+		
+		double[] weights = g.weights(profile);
+		Relaxer relaxer = new Relaxer(g, weights, delta, dist, pool);
+		IntList[] buckets = new IntList[slotCount(weights, delta, n)];
+		add(buckets, delta, dist, src);
+		
+		// bucket i lives in slot i % buckets.length, and is created only once something is put in
+		// it; once every slot has been passed over empty, nothing is left to do
+		int[] phaseStamp = new int[n]; // the last phase each node was expanded in
+		int[] bucketStamp = new int[n]; // one more than the last bucket each node was settled in
+		int phase = 0;
+		int emptySlots = 0;
+		for (int i = 0; emptySlots < buckets.length; i++) {
+			int slot = i % buckets.length;
+			if (buckets[slot] == null) {
+				emptySlots++;
+				continue;
+			}
+			emptySlots = 0;
+			
+			IntList settled = new IntList();
+			IntList later = new IntList(); // nodes in this slot for a later bucket sharing it
+			while (buckets[slot] != null) {
+				IntList queued = buckets[slot];
+				buckets[slot] = null;
+				phase++;
+				
+				// drop duplicates, and nodes whose costs have since fallen into an earlier bucket
+				IntList frontier = new IntList();
+				for (int j = 0; j < queued.size; j++) {
+					int v = queued.items[j];
+					int b = bucket(cost(dist, v), delta);
+					if (b > i) later.add(v);
+					if (phaseStamp[v] == phase || b != i) continue;
+					phaseStamp[v] = phase;
+					frontier.add(v);
+					if (bucketStamp[v] != i + 1) {
+						bucketStamp[v] = i + 1;
+						settled.add(v);
+					}
+				}
+				for (int v : relaxer.relax(frontier, true))
+					add(buckets, delta, dist, v);
+			}
+			for (int v : relaxer.relax(settled, false))
+				add(buckets, delta, dist, v);
+			if (later.size > 0) {
+				if (buckets[slot] == null) buckets[slot] = new IntList();
+				buckets[slot].addAll(later);
+			}
+		}
+		
+		double[] result = new double[n];
+		for (int v = 0; v < n; v++)
+			result[v] = cost(dist, v);
+		return result;
+	}
+	
+	/**
+	 * Chooses how many bucket slots to cycle through. Every tentative cost lies within the
+	 * heaviest usable edge of the lowest nonempty bucket, so that many buckets (and two more) never
+	 * share a slot; fewer slots only make some nodes wait in a slot for a later bucket.
+	 *
+	 * @return the number of slots, at most one more than the number of nodes
+	 */
+	private static int slotCount(double[] weights, double delta, int n) {
+		double heaviest = 0;
+		for (double weight : weights)
+			if (!Double.isInfinite(weight)) heaviest = Math.max(heaviest, weight);
+		return (int) Math.min(heaviest / delta + 2, n + 1);
+	}
+	
+	/**
+	 * Puts a node into the bucket for its current cost
+	 */
+	private static void add(IntList[] buckets, double delta, AtomicLongArray dist, int v) {
+		int slot = bucket(cost(dist, v), delta) % buckets.length;
+		if (buckets[slot] == null) buckets[slot] = new IntList();
+		buckets[slot].add(v);
+	}
+	
+	/**
+	 * @return the number of the bucket holding cost
+	 */
+	private static int bucket(double cost, double delta) {
+		return (int) Math.min(cost / delta, Integer.MAX_VALUE - 1);
+	}
+	
+	/**
+	 * @return the current tentative cost of node v
+	 */
+	private static double cost(AtomicLongArray dist, int v) {
+		return Double.longBitsToDouble(dist.get(v));
+	}
+	
+	/**
+	 * Relaxer relaxes the edges of a set of nodes, in parallel when there are enough of them
+	 */
+	private static class Relaxer {
+		private final ProfiledGraph<?> g;
+		private final double[] weights;
+		private final double delta;
+		private final AtomicLongArray dist;
+		private final ForkJoinPool pool;
+		
+		public Relaxer(ProfiledGraph<?> g, double[] weights, double delta, AtomicLongArray dist,
+				ForkJoinPool pool) {
+			this.g = g;
+			this.weights = weights;
+			this.delta = delta;
+			this.dist = dist;
+			this.pool = pool;
+		}
+		
+		/**
+		 * Relaxes either the light or the heavy edges of some nodes
+		 *
+		 * @param nodes : the nodes whose edges to relax
+		 * @param light : true to relax edges weighing at most delta, false for the rest
+		 * @return every node whose cost was lowered (possibly more than once each)
+		 */
+		public int[] relax(final IntList nodes, final boolean light) {
+			int tasks = pool.getParallelism() * TASKS_PER_THREAD;
+			if (nodes.size < PARALLEL_THRESHOLD || pool.getParallelism() == 1)
+				return relax(nodes, 0, nodes.size, light).toArray();
+			
+			List<Callable<IntList>> work = new ArrayList<Callable<IntList>>();
+			for (int t = 0; t < tasks; t++) {
+				final int from = (int) ((long) nodes.size * t / tasks);
+				final int to = (int) ((long) nodes.size * (t + 1) / tasks);
+				work.add(new Callable<IntList>() {
+					@Override
+					public IntList call() {
+						return relax(nodes, from, to, light);
+					}
+				});
+			}
+			
+			IntList lowered = new IntList();
+			for (Future<IntList> future : pool.invokeAll(work)) {
+				try {
+					lowered.addAll(future.get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while searching", e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+			return lowered.toArray();
+		}
+		
+		/**
+		 * Relaxes either the light or the heavy edges of nodes.items[from..to)
+		 */
+		private IntList relax(IntList nodes, int from, int to, boolean light) {
+			IntList lowered = new IntList();
+			for (int j = from; j < to; j++) {
+				int u = nodes.items[j];
+				double cost = cost(dist, u);
+				for (int e = g.edgeStart(u); e < g.edgeEnd(u); e++) {
+					double weight = weights[g.slot(u, e)];
+					if ((weight <= delta) != light) continue;
+					int v = g.target(e);
+					if (lower(v, cost + weight)) lowered.add(v);
+				}
+			}
+			return lowered;
+		}
+		
+		/**
+		 * Lowers the tentative cost of node v to cost, if cost is lower
+		 *
+		 * @return true if the cost of v was lowered
+		 */
+		private boolean lower(int v, double cost) {
+			// costs are never negative, so their bit patterns order the same way they do
+			long bits = Double.doubleToRawLongBits(cost);
+			while (true) {
+				long current = dist.get(v);
+				if (bits >= current) return false;
+				if (dist.compareAndSet(v, current, bits)) return true;
+			}
+		}
+	}
+	
+	/**
+	 * IntList is a growable list of ints
+	 */
+	private static class IntList {
+		private int[] items = new int[16];
+		private int size;
+		
+		public void add(int item) {
+			if (size == items.length) items = Arrays.copyOf(items, 2 * size);
+			items[size++] = item;
+		}
+		
+		public void addAll(IntList other) {
+			if (size + other.size > items.length)
+				items = Arrays.copyOf(items, Math.max(2 * items.length, size + other.size));
+			System.arraycopy(other.items, 0, items, size, other.size);
+			size += other.size;
+		}
+		
+		public int[] toArray() {
+			return Arrays.copyOf(items, size);
+		}
+	}
+}
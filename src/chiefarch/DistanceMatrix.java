@@ -0,0 +1,156 @@
+package chiefarch;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * DistanceMatrix computes walking distances between every pair of buildings in a set and streams
+ * them out one row at a time. Each row comes from a single search out of its source building, and
+ * rows are computed in parallel across the available cores. Only a bounded number of rows is held
+ * in memory at once, and no paths are ever kept.
+ */
+public class DistanceMatrix {
+	
+	// how many rows each worker thread may have computed ahead of the writer
+	private static final int ROWS_AHEAD_PER_THREAD = 4;
+	
+	/**
+	 * Writes a distance matrix as CSV. The first row holds the building abbreviations, and every
+	 * following row holds a building abbreviation and then its distance to each building in turn.
+	 * Cells for pairs with no path between them are left empty.
+	 * 
+	 * @param map       : the map to measure distances on
+	 * @param buildings : abbreviations for the buildings to include, in matrix order
+	 * @param out       : where to write the matrix (not closed by this method)
+	 * @throws IOException if out cannot be written to
+	 * @throws IllegalArgumentException if any member of buildings is not on map
+	 */
+	public static void writeCsv(CampusMap map, final List<String> buildings, final Writer out)
+			throws IOException {
+		for (String building : buildings) {
+			out.write(',');
+			out.write(csvEscape(building));
+		}
+		out.write('\n');
+		
+		compute(map, buildings, new RowWriter() {
+			@Override
+			public void write(int row, double[] distances) throws IOException {
+				out.write(csvEscape(buildings.get(row)));
+				for (double distance : distances) {
+					out.write(',');
+					if (distance != Double.POSITIVE_INFINITY) out.write(Double.toString(distance));
+				}
+				out.write('\n');
+			}
+		});
+		out.flush();
+	}
+	
+	/**
+	 * Writes a distance matrix in a compact binary form: the number of buildings n as an int, the
+	 * n building abbreviations in modified UTF-8, and then the n * n distances as doubles in
+	 * row-major order. Pairs with no path between them have a distance of positive infinity.
+	 * 
+	 * @param map       : the map to measure distances on
+	 * @param buildings : abbreviations for the buildings to include, in matrix order
+	 * @param out       : where to write the matrix (not closed by this method)
+	 * @throws IOException if out cannot be written to
+	 * @throws IllegalArgumentException if any member of buildings is not on map
+	 */
+	public static void writeBinary(CampusMap map, List<String> buildings, OutputStream out)
+			throws IOException {
+		final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(buildings.size());
+		for (String building : buildings)
+			data.writeUTF(building);
+		
+		compute(map, buildings, new RowWriter() {
+			@Override
+			public void write(int row, double[] distances) throws IOException {
+				for (double distance : distances)
+					data.writeDouble(distance);
+			}
+		});
+		data.flush();
+	}
+	
+	/**
+	 * Computes each row of a distance matrix in parallel and hands them to a RowWriter in order
+	 * 
+	 * @param map       : the map to measure distances on
+	 * @param buildings : abbreviations for the buildings to include, in matrix order
+	 * @param writer    : receives each row as it becomes available
+	 * @throws IOException if writer fails
+	 * @throws IllegalArgumentException if any member of buildings is not on map
+	 */
+	private static void compute(final CampusMap map, final List<String> buildings, RowWriter writer)
+			throws IOException {
+		for (String building : buildings)
+			if (!map.hasBuilding(building))
+				throw new IllegalArgumentException("Unknown building: " + building);
+		
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		Deque<Future<double[]>> pending = new ArrayDeque<Future<double[]>>();
+		try {
+			int next = 0; // next row to submit
+			for (int row = 0; row < buildings.size(); row++) {
+				// keep the pool busy without letting finished rows pile up
+				while (next < buildings.size() && pending.size() < threads * ROWS_AHEAD_PER_THREAD) {
+					final String start = buildings.get(next++);
+					pending.add(pool.submit(new Callable<double[]>() {
+						@Override
+						public double[] call() {
+							return map.distancesFrom(start, buildings);
+						}
+					}));
+				}
+				writer.write(row, pending.remove().get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while computing distances");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Quotes a CSV cell if it contains characters that would otherwise break the row
+	 * 
+	 * @param cell : the raw cell contents
+	 * @return cell, ready to be written to a CSV file
+	 */
+	private static String csvEscape(String cell) {
+		if (cell.indexOf(',') < 0 && cell.indexOf('"') < 0 && cell.indexOf('\n') < 0) return cell;
+		return '"' + cell.replace("\"", "\"\"") + '"';
+	}
+	
+	/**
+	 * RowWriter receives the rows of a distance matrix, in order, as they are computed
+	 */
+	private interface RowWriter {
+		/**
+		 * @param row       : the index of the source building of this row
+		 * @param distances : distances from the source building to every building in the matrix
+		 * @throws IOException if the row cannot be written
+		 */
+		void write(int row, double[] distances) throws IOException;
+	}
+}
@@ -0,0 +1,312 @@
+package chiefarch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DoubleWeightedGraph represents a directed graph whose edges are weighted by primitive doubles.
+ * It is a specialization of Graph<N, Double> for the common case of at most one weighted edge
+ * from one node to another, and it never boxes a weight: edges are added, looked up and
+ * traversed as doubles.
+ *
+ * Nodes are numbered 0 to size() - 1 in the order they were added, and the edges leaving node v
+ * are numbered 0 to degree(v) - 1, so searches can walk the graph without any lookups.
+ *
+ * @specfield nodes : set // The nodes
+ * @specfield edges : set // The weighted directed edges between nodes
+ * @param N : the type of nodes in this graph
+ *
+ * Abstraction Function:
+ * 		Node v is nodes.get(v), and index.get(nodes.get(v)) == v
+ * 		For each i in [0, degree[v]), there is an edge from node v to node targets[v][i] with
+ * 			weight weights[v][i]
+ *
+ * Representation Invariant:
+ * 		targets.length == weights.length == degree.length >= nodes.size()
+ * 		degree[v] <= targets[v].length == weights[v].length for each node v
+ * 		targets[v][0..degree[v] - 1] are distinct node numbers
+ */
+public class DoubleWeightedGraph<N> {
+
+	private static final int INITIAL_DEGREE = 4;
+	
+	private final List<N> nodes;
+	private final Map<N, Integer> index;
+	private int[][] targets;
+	private double[][] weights;
+	private int[] degree;
+	private int edgeCount;
+	
+	/**
+	 * Creates a null graph.
+	 */
+	public DoubleWeightedGraph() {
+		nodes = new ArrayList<N>();
+		index = new HashMap<N, Integer>();
+		targets = new int[INITIAL_DEGREE][];
+		weights = new double[INITIAL_DEGREE][];
+		degree = new int[INITIAL_DEGREE];
+	}
+	
+	/**
+	 * Creates a DoubleWeightedGraph with the same nodes and edges as a Graph. Where the Graph has
+	 * several edges from one node to another, only the cheapest is kept.
+	 *
+	 * @param g : the graph to copy
+	 * @throws IllegalArgumentException if g is null
+	 */
+	public DoubleWeightedGraph(Graph<N, Double> g) {
+		this();
+		if (g == null) throw new IllegalArgumentException();
+		for (N node : g.nodeSet())
+			addNode(node);
+		for (N node : g.nodeSet()) {
+			Map<N, Set<Double>> childMap = g.childMap(node);
+			for (N child : childMap.keySet())
+				addEdge(node, child, Collections.min(childMap.get(child)));
+		}
+	}
+	
+	/**
+	 * Adds a new node to this graph. Does nothing if this node is already a part of the graph.
+	 *
+	 * @param node : the node to be added to this graph
+	 * @modifies nodes
+	 * @effects may add new node to nodes
+	 * @return true if this node was successfully added to this graph, false if this node was
+	 *      already a part of this graph
+	 */
+	public boolean addNode(N node) {
+		if (index.containsKey(node)) return false;
+		int v = nodes.size();
+		if (v == degree.length) {
+			int capacity = 2 * v;
+			targets = Arrays.copyOf(targets, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+			degree = Arrays.copyOf(degree, capacity);
+		}
+		nodes.add(node);
+		index.put(node, v);
+		targets[v] = new int[INITIAL_DEGREE];
+		weights[v] = new double[INITIAL_DEGREE];
+		return true;
+	}
+	
+	/**
+	 * Removes specified node, and every edge leading to or from it, from this graph. Does nothing
+	 * if this node is not in this graph. The last node takes over the number of the removed node.
+	 *
+	 * @param node : the node to be removed from this graph
+	 * @modifies nodes, edges
+	 * @effects may remove node from nodes and edges touching it from edges
+	 * @return true if this node was successfully removed from this graph, false if this node
+	 * 		was not already a part of this graph
+	 */
+	public boolean removeNode(N node) {
+		Integer removed = index.remove(node);
+		if (removed == null) return false;
+		int v = removed;
+		int last = nodes.size() - 1;
+		
+		edgeCount -= degree[v];
+		for (int u = 0; u <= last; u++) {
+			if (u == v) continue;
+			int i = find(u, v);
+			if (i >= 0) {
+				int end = --degree[u];
+				targets[u][i] = targets[u][end];
+				weights[u][i] = weights[u][end];
+				edgeCount--;
+			}
+			// renumber edges into the last node, which is about to take v's place
+			for (int j = 0; j < degree[u]; j++)
+				if (targets[u][j] == last) targets[u][j] = v;
+		}
+		
+		if (v != last) {
+			N moved = nodes.get(last);
+			nodes.set(v, moved);
+			index.put(moved, v);
+			targets[v] = targets[last];
+			weights[v] = weights[last];
+			degree[v] = degree[last];
+		}
+		nodes.remove(last);
+		targets[last] = null;
+		weights[last] = null;
+		degree[last] = 0;
+		return true;
+	}
+	
+	/**
+	 * Adds a weighted edge to this graph. If there already is an edge from src to dest, it keeps
+	 * the smaller of its current weight and the new weight.
+	 *
+	 * @param src    : the node at the tail end of this directed edge
+	 * @param dest   : the node at the head of this directed edge
+	 * @param weight : the weight of this edge
+	 * @modifies edges
+	 * @effects may add edge to edges, or lower the weight of an edge in edges
+	 * @throws IllegalArgumentException if either src or dest are not nodes in this graph
+	 * @return true if this graph changed, false if it already had an edge from src to dest
+	 * 		weighing no more than weight
+	 */
+	public boolean addEdge(N src, N dest, double weight) {
+		int v = checkedIndex(src);
+		int w = checkedIndex(dest);
+		int i = find(v, w);
+		if (i >= 0) {
+			if (weights[v][i] <= weight) return false;
+			weights[v][i] = weight;
+			return true;
+		}
+		
+		if (degree[v] == targets[v].length) {
+			targets[v] = Arrays.copyOf(targets[v], 2 * degree[v]);
+			weights[v] = Arrays.copyOf(weights[v], 2 * degree[v]);
+		}
+		targets[v][degree[v]] = w;
+		weights[v][degree[v]++] = weight;
+		edgeCount++;
+		return true;
+	}
+	
+	/**
+	 * Removes the edge from one node to another
+	 *
+	 * @param src  : the node at the tail end of this directed edge
+	 * @param dest : the node at the head of this directed edge
+	 * @modifies edges
+	 * @effects may remove edge from edges
+	 * @throws IllegalArgumentException if either src or dest are not nodes in this graph
+	 * @return true if this edge was successfully removed from this graph, false if this edge
+	 * 		was not already a part of this graph
+	 */
+	public boolean removeEdge(N src, N dest) {
+		int v = checkedIndex(src);
+		int i = find(v, checkedIndex(dest));
+		if (i < 0) return false;
+		// move the last edge into the gap
+		int last = --degree[v];
+		targets[v][i] = targets[v][last];
+		weights[v][i] = weights[v][last];
+		edgeCount--;
+		return true;
+	}
+	
+	/**
+	 * Fetches the weight of the edge from one node to another
+	 *
+	 * @param src  : the node at the tail end of the edge
+	 * @param dest : the node at the head of the edge
+	 * @return the weight of the edge from src to dest, or Double.NaN if there is no such edge
+	 */
+	public double weight(N src, N dest) {
+		Integer v = index.get(src);
+		Integer w = index.get(dest);
+		if (v == null || w == null) return Double.NaN;
+		int i = find(v, w);
+		return (i < 0) ? Double.NaN : weights[v][i];
+	}
+	
+	/**
+	 * Identifies whether or not this graph has a specified node.
+	 *
+	 * @param node : the node to search for
+	 * @return true if this node is in the graph, false otherwise
+	 */
+	public boolean contains(N node) {
+		return index.containsKey(node);
+	}
+	
+	/**
+	 * Fetches nodes in this graph.
+	 *
+	 * @return an unmodifiable list of all nodes in this graph, where element v is node v
+	 */
+	public List<N> nodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+	
+	/**
+	 * @return the number of nodes in this graph
+	 */
+	public int size() {
+		return nodes.size();
+	}
+	
+	/**
+	 * @return the number of edges in this graph
+	 */
+	public int edgeCount() {
+		return edgeCount;
+	}
+	
+	/**
+	 * @param node : a node in this graph
+	 * @return the number of node, or -1 if it is not in this graph
+	 */
+	public int indexOf(N node) {
+		Integer v = index.get(node);
+		return (v == null) ? -1 : v;
+	}
+	
+	/**
+	 * @param v : the number of a node in this graph
+	 * @return the node numbered v
+	 */
+	public N node(int v) {
+		return nodes.get(v);
+	}
+	
+	/**
+	 * @param v : the number of a node in this graph
+	 * @return the number of edges leaving node v
+	 */
+	public int degree(int v) {
+		return degree[v];
+	}
+	
+	/**
+	 * @param v : the number of a node in this graph
+	 * @param i : the number of an edge leaving v, in [0, degree(v))
+	 * @return the number of the node that edge leads to
+	 */
+	public int target(int v, int i) {
+		return targets[v][i];
+	}
+	
+	/**
+	 * @param v : the number of a node in this graph
+	 * @param i : the number of an edge leaving v, in [0, degree(v))
+	 * @return the weight of that edge
+	 */
+	public double weight(int v, int i) {
+		return weights[v][i];
+	}
+	
+	/**
+	 * @return the position of the edge from node v to node w among the edges leaving v, or -1 if
+	 * 		there is no such edge
+	 */
+	private int find(int v, int w) {
+		for (int i = 0; i < degree[v]; i++)
+			if (targets[v][i] == w) return i;
+		return -1;
+	}
+	
+	/**
+	 * @return the number of node
+	 * @throws IllegalArgumentException if node is not in this graph
+	 */
+	private int checkedIndex(N node) {
+		Integer v = index.get(node);
+		if (v == null) throw new IllegalArgumentException("No such node(s) in graph");
+		return v;
+	}
+}
@@ -17,9 +17,12 @@ import java.util.*;
  * 		All nodes in links.keySet()
  * 		T t is a parent of all nodes in links.get(t).keySet()
  * 		The edge labels from T parent to T child are found in links.get(parent).get(child)
+ * 		readOnly.get(parent).get(child) is a read-only view of links.get(parent).get(child)
  * 
  * Representation Invariant:
- * 		links != null
+ * 		links != null, readOnly != null
+ * 		readOnly.keySet() equals links.keySet(), and readOnly.get(s).keySet() equals
+ * 			links.get(s).keySet() for every node s
  * 		For any node in the graph represented by String s, links.get(s).keySet() should be a subset
  * 			of links.keySet()
  */
@@ -29,11 +32,16 @@ public class Graph<N, E> {
     
     private HashMap<N, HashMap<N, HashSet<E>>> links;
     
+    // read-only views of the edge sets in links, handed out by childMap and edgesBetween so that
+    // looking at a node's children costs no copying
+    private HashMap<N, HashMap<N, Set<E>>> readOnly;
+    
     /**
      * Creates a null graph.
      */
     public Graph() {
         links = new HashMap<N, HashMap<N, HashSet<E>>>();
+        readOnly = new HashMap<N, HashMap<N, Set<E>>>();
         if (Graph.TESTING) checkRep();
     }
     
@@ -46,8 +54,11 @@ public class Graph<N, E> {
      */
     public Graph(Set<N> nodes) {
     	links = new HashMap<N, HashMap<N, HashSet<E>>>();
-    	for (N node : nodes)
+    	readOnly = new HashMap<N, HashMap<N, Set<E>>>();
+    	for (N node : nodes) {
     		links.put(node, new HashMap<N, HashSet<E>>());
+    		readOnly.put(node, new HashMap<N, Set<E>>());
+    	}
     	if (Graph.TESTING) checkRep();
     }
     
@@ -63,6 +74,7 @@ public class Graph<N, E> {
     public boolean addNode(N node) {
         if (links.containsKey(node)) return false;
         links.put(node, new HashMap<N, HashSet<E>>());
+        readOnly.put(node, new HashMap<N, Set<E>>());
         return true;
     }
     
@@ -79,7 +91,9 @@ public class Graph<N, E> {
     	if (Graph.TESTING) checkRep();
         if (!links.containsKey(node)) return false;
         links.remove(node);
+        readOnly.remove(node);
         for (HashMap<N, HashSet<E>> edges : links.values()) edges.remove(node);
+        for (HashMap<N, Set<E>> edges : readOnly.values()) edges.remove(node);
         if (Graph.TESTING) checkRep();
         return true;
     }
@@ -101,7 +115,11 @@ public class Graph<N, E> {
             throw new IllegalArgumentException("No such node(s) in graph");
         HashMap<N, HashSet<E>> children = links.get(src);
         // add dest as child of src if it isn't already
-        if (!children.containsKey(dest)) children.put(dest, new HashSet<E>());
+        if (!children.containsKey(dest)) {
+            HashSet<E> edges = new HashSet<E>();
+            children.put(dest, edges);
+            readOnly.get(src).put(dest, Collections.unmodifiableSet(edges));
+        }
         return children.get(dest).add(label);
     }
     
@@ -124,7 +142,10 @@ public class Graph<N, E> {
         Set<E> edges = links.get(src).get(dest);
         boolean success = edges.remove(label);
         // if no more edges exist from src to dest, remove dest from mapping of children
-        if (edges.isEmpty()) links.get(src).remove(dest);
+        if (edges.isEmpty()) {
+            links.get(src).remove(dest);
+            readOnly.get(src).remove(dest);
+        }
         return success;
     }
     
@@ -144,17 +165,13 @@ public class Graph<N, E> {
      * @param node : the node in question
      * @return null if the specified node is not in this graph; otherwise, returns a map where the
      *      keys are children of node and the values are sets directed edges leading from node to
-     *      one of its children
+     *      one of its children. The map is a read-only view, so it costs nothing to create and
+     *      reflects later changes to this graph.
      */
-    @SuppressWarnings("unchecked")
     public Map<N, Set<E>> childMap(N node) {
-        if (!links.containsKey(node)) return null;
-        // creates a copy of the value (HashMap) associated with key s
-        Map<N, Set<E>> hm = new HashMap<N, Set<E>>();
-        HashMap<N, HashSet<E>> dests = links.get(node);
-        for (N dest : dests.keySet())
-            hm.put(dest, (HashSet<E>) dests.get(dest).clone());
-        return hm;
+        HashMap<N, Set<E>> dests = readOnly.get(node);
+        if (dests == null) return null;
+        return Collections.unmodifiableMap(dests);
     }
     
     /**
@@ -162,11 +179,11 @@ public class Graph<N, E> {
      * 
      * @param parent : the parent node to be considered
      * @param child  : the child node to be considered
-     * @return a set of all directed edges leading from parent to child
+     * @return a read-only view of the set of all directed edges leading from parent to child, or
+     *      null if there are none
      */
-    @SuppressWarnings("unchecked")
 	public Set<E> edgesBetween(N parent, N child) {
-    	return (Set<E>) links.get(parent).get(child).clone();
+    	return readOnly.get(parent).get(child);
     }
     
     /**
@@ -202,5 +219,10 @@ public class Graph<N, E> {
     		for (N child : links.get(parent).keySet())
     			if (!links.keySet().contains(child))
     				throw new RuntimeException("child found that is not a part of parent set");
+    	if (readOnly == null || !readOnly.keySet().equals(links.keySet()))
+    		throw new RuntimeException("readOnly should have the same nodes as links");
+    	for (N parent : links.keySet())
+    		if (!readOnly.get(parent).keySet().equals(links.get(parent).keySet()))
+    			throw new RuntimeException("readOnly should have the same children as links");
     }
 }
@@ -1,13 +1,16 @@
 package chiefarch;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import chiefarch.Graph;
 
@@ -64,6 +67,486 @@ public class GraphAlgos {
 		return null; // no path found
 	}
 	
+	/**
+	 * Runs A* search to find the shortest path between two nodes in a graph. The heuristic must
+	 * never overestimate the cost of reaching dest and must obey the triangle inequality, in which
+	 * case the path found is as short as the one found by runDijsktra.
+	 * 
+	 * @param g		: the graph on which to perform the search
+	 * @param src  	: the node to find a path from
+	 * @param dest 	: the node to find a path to
+	 * @param h		: estimates the remaining cost from a node to dest
+	 * @param <N>	: the type of nodes in the given graph
+	 * @return an ordered list where the first element is the first node from src and the last
+	 * 		element is dest (this list is empty if src == dest); null if either src or dest are not
+	 * 		in this graph or there is no path between these two nodes
+	 * @throws IllegalArgumentException if g or h is null
+	 */
+	public static <N> List<N> runAStar(Graph<N, Double> g, N src, N dest, Heuristic<N> h) {
+		if (g == null || h == null) throw new IllegalArgumentException();
+		if (!g.contains(src) || !g.contains(dest)) return null;
+		
+		Map<N, Double> best = new HashMap<N, Double>(); // cheapest known cost to each node
+		Map<N, N> parents = new HashMap<N, N>();
+		Set<N> finished = new HashSet<N>();
+		Queue<Label<N>> active = new PriorityQueue<Label<N>>();
+		best.put(src, 0.0);
+		active.add(new Label<N>(src, h.estimate(src, dest)));
+		
+		while (!active.isEmpty()) {
+			N min = active.remove().node;
+			if (min.equals(dest)) return unwind(parents, src, dest);
+			if (!finished.add(min)) continue;
+			
+			double cost = best.get(min);
+			Map<N, Set<Double>> childMap = g.childMap(min);
+			for (N child : childMap.keySet()) {
+				if (finished.contains(child)) continue;
+				double childCost = cost + Collections.min(childMap.get(child));
+				Double known = best.get(child);
+				if (known != null && known <= childCost) continue;
+				best.put(child, childCost);
+				parents.put(child, min);
+				active.add(new Label<N>(child, childCost + h.estimate(child, dest)));
+			}
+		}
+		return null; // no path found
+	}
+	
+	/**
+	 * Follows parent links back from dest to build the path that a search found
+	 * 
+	 * @param parents : maps each node reached by the search to the node it was reached from
+	 * @param src     : the node the search started from
+	 * @param dest    : the node the path leads to
+	 * @return an ordered list of the nodes after src along the path, ending with dest
+	 */
+	private static <N> List<N> unwind(Map<N, N> parents, N src, N dest) {
+		List<N> nodes = new ArrayList<N>();
+		for (N node = dest; !node.equals(src); node = parents.get(node))
+			nodes.add(node);
+		Collections.reverse(nodes);
+		return nodes;
+	}
+	
+	/**
+	 * Finds every node that can be reached from a source node without exceeding a cost limit.
+	 * The search settles nodes in order of increasing cost and stops as soon as the cheapest
+	 * remaining candidate lies beyond the limit.
+	 * 
+	 * @param g		: the graph on which to perform the search
+	 * @param src	: the node to search from
+	 * @param limit	: the maximum cost of a path to a reachable node
+	 * @param <N>	: the type of nodes in the given graph
+	 * @return a map from each reachable node (including src) to the cost of the cheapest path
+	 * 		from src to it; null if src is not in this graph
+	 * @throws IllegalArgumentException if g is null or limit is negative
+	 */
+	public static <N> Map<N, Double> reachableWithin(Graph<N, Double> g, N src, double limit) {
+		if (g == null || limit < 0) throw new IllegalArgumentException();
+		if (!g.contains(src)) return null;
+		
+		Map<N, Double> finished = new HashMap<N, Double>();
+		Queue<Label<N>> active = new PriorityQueue<Label<N>>();
+		active.add(new Label<N>(src, 0.0));
+		
+		while (!active.isEmpty()) {
+			Label<N> min = active.remove();
+			if (min.cost > limit) break; // everything left is further away
+			if (finished.containsKey(min.node)) continue;
+			finished.put(min.node, min.cost);
+			
+			Map<N, Set<Double>> childMap = g.childMap(min.node);
+			for (N child : childMap.keySet()) {
+				if (finished.containsKey(child)) continue;
+				double cost = min.cost + Collections.min(childMap.get(child));
+				if (cost <= limit) active.add(new Label<N>(child, cost));
+			}
+		}
+		return finished;
+	}
+	
+	/**
+	 * Runs Dijsktra's algorithm to find the shortest path between two nodes in a ProfiledGraph.
+	 * 
+	 * @param g			: the graph on which to perform the search
+	 * @param profile	: the weight profile of g to measure path costs with
+	 * @param src  		: the node to find a path from
+	 * @param dest 		: the node to find a path to
+	 * @param <N>		: the type of nodes in the given graph
+	 * @return an ordered list where the first element is the first node from src and the last
+	 * 		element is dest (this list is empty if src == dest); null if either src or dest are not
+	 * 		in this graph or there is no path between these two nodes
+	 * @throws IllegalArgumentException if g is null or profile is not a profile of g
+	 */
+	public static <N> List<N> runDijsktra(ProfiledGraph<N> g, int profile, N src, N dest) {
+		return search(g, profile, src, dest, null, null);
+	}
+	
+	/**
+	 * Runs Dijsktra's algorithm as runDijsktra(g, profile, src, dest) does, recording how the
+	 * search explores g
+	 * 
+	 * @param g			: the graph on which to perform the search
+	 * @param profile	: the weight profile of g to measure path costs with
+	 * @param src  		: the node to find a path from
+	 * @param dest 		: the node to find a path to
+	 * @param trace		: the trace to record the search in, or null to record nothing
+	 * @param <N>		: the type of nodes in the given graph
+	 * @return the path as described by runDijsktra(g, profile, src, dest)
+	 * @throws IllegalArgumentException if g is null or profile is not a profile of g
+	 */
+	public static <N> List<N> runDijsktra(ProfiledGraph<N> g, int profile, N src, N dest, SearchTrace trace) {
+		return search(g, profile, src, dest, null, trace);
+	}
+	
+	/**
+	 * Runs A* search to find the shortest path between two nodes in a ProfiledGraph. The same
+	 * requirements on the heuristic apply as for runAStar on a Graph.
+	 * 
+	 * @param g			: the graph on which to perform the search
+	 * @param profile	: the weight profile of g to measure path costs with
+	 * @param src  		: the node to find a path from
+	 * @param dest 		: the node to find a path to
+	 * @param h			: estimates the remaining cost from a node to dest under profile
+	 * @param <N>		: the type of nodes in the given graph
+	 * @return an ordered list where the first element is the first node from src and the last
+	 * 		element is dest (this list is empty if src == dest); null if either src or dest are not
+	 * 		in this graph or there is no path between these two nodes
+	 * @throws IllegalArgumentException if g or h is null or profile is not a profile of g
+	 */
+	public static <N> List<N> runAStar(ProfiledGraph<N> g, int profile, N src, N dest, Heuristic<N> h) {
+		return runAStar(g, profile, src, dest, h, null);
+	}
+	
+	/**
+	 * Runs A* search as runAStar(g, profile, src, dest, h) does, recording how the search
+	 * explores g
+	 * 
+	 * @param g			: the graph on which to perform the search
+	 * @param profile	: the weight profile of g to measure path costs with
+	 * @param src  		: the node to find a path from
+	 * @param dest 		: the node to find a path to
+	 * @param h			: estimates the remaining cost from a node to dest under profile
+	 * @param trace		: the trace to record the search in, or null to record nothing
+	 * @param <N>		: the type of nodes in the given graph
+	 * @return the path as described by runAStar(g, profile, src, dest, h)
+	 * @throws IllegalArgumentException if g or h is null or profile is not a profile of g
+	 */
+	public static <N> List<N> runAStar(ProfiledGraph<N> g, int profile, N src, N dest, Heuristic<N> h,
+			SearchTrace trace) {
+		if (h == null) throw new IllegalArgumentException();
+		return search(g, profile, src, dest, h, trace);
+	}
+	
+	/**
+	 * Finds every node of a ProfiledGraph that can be reached from a source node without exceeding
+	 * a cost limit.
+	 * 
+	 * @param g			: the graph on which to perform the search
+	 * @param profile	: the weight profile of g to measure path costs with
+	 * @param src		: the node to search from
+	 * @param limit		: the maximum cost of a path to a reachable node
+	 * @param <N>		: the type of nodes in the given graph
+	 * @return a map from each reachable node (including src) to the cost of the cheapest path
+	 * 		from src to it; null if src is not in this graph
+	 * @throws IllegalArgumentException if g is null, profile is not a profile of g, or limit is
+	 * 		negative
+	 */
+	public static <N> Map<N, Double> reachableWithin(ProfiledGraph<N> g, int profile, N src, double limit) {
+		checkProfile(g, profile);
+		if (limit < 0) throw new IllegalArgumentException();
+		int v = g.indexOf(src);
+		if (v < 0) return null;
+		
+		double[] dist = distancesWithin(g, profile, v, limit);
+		Map<N, Double> reachable = new HashMap<N, Double>();
+		for (int w = 0; w < dist.length; w++)
+			// unreached nodes are at infinite cost, which an infinite limit would let through
+			if (dist[w] != Double.POSITIVE_INFINITY && dist[w] <= limit) reachable.put(g.node(w), dist[w]);
+		return reachable;
+	}
+	
+	/**
+	 * Finds the cost of the cheapest path from one node of a ProfiledGraph to every node, for as
+	 * far as a cost limit
+	 * 
+	 * @param g			: the graph on which to perform the search
+	 * @param profile	: the weight profile of g to measure path costs with
+	 * @param src		: the number of the node to search from
+	 * @param limit		: the cost beyond which to stop searching (Double.POSITIVE_INFINITY to
+	 * 		search the whole graph)
+	 * @param <N>		: the type of nodes in the given graph
+	 * @return an array where element v is the cost of the cheapest path from src to node v, or
+	 * 		Double.POSITIVE_INFINITY if there is no such path costing at most limit
+	 * @throws IllegalArgumentException if g is null or profile is not a profile of g
+	 * @throws IndexOutOfBoundsException if src is not the number of a node in g
+	 */
+	public static <N> double[] distancesWithin(ProfiledGraph<N> g, int profile, int src, double limit) {
+		checkProfile(g, profile);
+		double[] weights = g.weights(profile);
+		SearchSpace space = SearchSpace.forCurrentThread();
+		space.reset(g.size());
+		space.reach(src, 0, src, 0);
+		
+		double[] dist = new double[g.size()];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		while (!space.isEmpty()) {
+			int min = space.settle();
+			double cost = space.cost(min);
+			dist[min] = cost;
+			
+			for (int e = g.edgeStart(min); e < g.edgeEnd(min); e++) {
+				int child = g.target(e);
+				double childCost = cost + weights[g.slot(min, e)];
+				if (childCost <= limit && !space.isSettled(child) && childCost < space.cost(child))
+					space.reach(child, childCost, min, childCost);
+			}
+		}
+		return dist;
+	}
+	
+	/**
+	 * Finds the cheapest path from one node of a ProfiledGraph to every node, on the calling thread
+	 *
+	 * @param g			: the graph on which to perform the search
+	 * @param profile	: the weight profile of g to measure path costs with
+	 * @param src		: the number of the node to search from
+	 * @param <N>		: the type of nodes in the given graph
+	 * @return the tree of cheapest paths from src, identical to the one parallelShortestPathTree
+	 * 		finds (both trees are built from costs alone by ShortestPathTree.build, so they match
+	 * 		whichever predecessors either search happened to record)
+	 * @throws IllegalArgumentException if g is null or profile is not a profile of g
+	 * @throws IndexOutOfBoundsException if src is not the number of a node in g
+	 */
+	public static <N> ShortestPathTree shortestPathTree(ProfiledGraph<N> g, int profile, int src) {
+		double[] dist = distancesWithin(g, profile, src, Double.POSITIVE_INFINITY);
+		return ShortestPathTree.build(g, profile, src, dist, null);
+	}
+	
+	/**
+	 * Finds the cheapest path from one node of a ProfiledGraph to every node using delta-stepping,
+	 * with buckets as wide as the mean weight of the usable edges of the profile (edges weighing
+	 * Double.POSITIVE_INFINITY are closed, and left out of the mean)
+	 *
+	 * @param pool		: the threads to search with
+	 * @return the tree as described by parallelShortestPathTree(g, profile, src, delta, pool)
+	 */
+	public static <N> ShortestPathTree parallelShortestPathTree(ProfiledGraph<N> g, int profile, int src,
+			ForkJoinPool pool) {
+		checkProfile(g, profile);
+		double[] weights = g.weights(profile);
+		double total = 0;
+		int usable = 0;
+		for (double weight : weights) {
+			if (Double.isInfinite(weight)) continue;
+			total += weight;
+			usable++;
+		}
+		double delta = (total > 0) ? total / usable : 1;
+		return parallelShortestPathTree(g, profile, src, delta, pool);
+	}
+	
+	/**
+	 * Finds the cheapest path from one node of a ProfiledGraph to every node using delta-stepping,
+	 * relaxing the edges of each bucket of nodes in parallel (see DeltaStepping)
+	 *
+	 * @param g			: the graph on which to perform the search
+	 * @param profile	: the weight profile of g to measure path costs with
+	 * @param src		: the number of the node to search from
+	 * @param delta		: the width of each bucket, in units of cost; about the mean edge weight is
+	 * 		best, as narrower buckets mean more rounds and wider ones more wasted relaxations
+	 * @param pool		: the threads to search with
+	 * @param <N>		: the type of nodes in the given graph
+	 * @return the tree of cheapest paths from src, identical to the one shortestPathTree finds (both
+	 * 		trees are built from costs alone by ShortestPathTree.build; the search itself keeps no
+	 * 		predecessors, and which path it relaxes last depends on thread timing)
+	 * @throws IllegalArgumentException if g or pool is null, profile is not a profile of g, or
+	 * 		delta is not positive and finite
+	 * @throws IndexOutOfBoundsException if src is not the number of a node in g
+	 */
+	public static <N> ShortestPathTree parallelShortestPathTree(ProfiledGraph<N> g, int profile, int src,
+			double delta, ForkJoinPool pool) {
+		checkProfile(g, profile);
+		if (pool == null) throw new IllegalArgumentException();
+		if (!(delta > 0) || Double.isInfinite(delta)) throw new IllegalArgumentException("Bad bucket width: " + delta);
+		if (src < 0 || src >= g.size()) throw new IndexOutOfBoundsException("No such node: " + src);
+		double[] dist = DeltaStepping.distances(g, profile, src, delta, pool);
+		return ShortestPathTree.build(g, profile, src, dist, pool);
+	}
+	
+	/**
+	 * Searches a ProfiledGraph for the shortest path between two nodes, guided by a heuristic
+	 * 
+	 * @param h     : estimates the remaining cost from a node to dest, or null for a blind search
+	 * @param trace : the trace to record the search in, or null to record nothing
+	 * @return the path as described by runDijsktra
+	 */
+	private static <N> List<N> search(ProfiledGraph<N> g, int profile, N src, N dest, Heuristic<N> h,
+			SearchTrace trace) {
+		checkProfile(g, profile);
+		int s = g.indexOf(src);
+		int t = g.indexOf(dest);
+		if (s < 0 || t < 0) return null;
+		
+		double[] weights = g.weights(profile);
+		SearchSpace space = SearchSpace.forCurrentThread();
+		space.reset(g.size());
+		space.reach(s, 0, s, 0);
+		
+		while (!space.isEmpty()) {
+			int min = space.settle();
+			if (trace != null) trace.settled(min, space.queued());
+			if (min == t) {
+				List<N> nodes = new ArrayList<N>();
+				for (int v = t; v != s; v = space.parent(v))
+					nodes.add(g.node(v));
+				Collections.reverse(nodes);
+				return nodes;
+			}
+			
+			double cost = space.cost(min);
+			for (int e = g.edgeStart(min); e < g.edgeEnd(min); e++) {
+				int child = g.target(e);
+				double childCost = cost + weights[g.slot(min, e)];
+				if (space.isSettled(child) || childCost >= space.cost(child)) continue;
+				double estimate = (h == null) ? 0 : h.estimate(g.node(child), dest);
+				space.reach(child, childCost, min, childCost + estimate);
+				if (trace != null) trace.relaxed(child);
+			}
+		}
+		return null; // no path found
+	}
+	
+	/**
+	 * Runs Dijsktra's algorithm to find the shortest path between two nodes in a
+	 * DoubleWeightedGraph. Edge weights are never boxed, and the search reuses its working memory
+	 * from one call to the next.
+	 * 
+	 * @param g		: the graph on which to perform the search
+	 * @param src  	: the node to find a path from
+	 * @param dest 	: the node to find a path to
+	 * @param <N>	: the type of nodes in the given graph
+	 * @return an ordered list where the first element is the first node from src and the last
+	 * 		element is dest (this list is empty if src == dest); null if either src or dest are not
+	 * 		in this graph or there is no path between these two nodes
+	 * @throws IllegalArgumentException if g is null
+	 */
+	public static <N> List<N> runDijsktra(DoubleWeightedGraph<N> g, N src, N dest) {
+		if (g == null) throw new IllegalArgumentException();
+		int s = g.indexOf(src);
+		int t = g.indexOf(dest);
+		if (s < 0 || t < 0) return null;
+		
+		SearchSpace space = SearchSpace.forCurrentThread();
+		space.reset(g.size());
+		space.reach(s, 0, s, 0);
+		
+		while (!space.isEmpty()) {
+			int min = space.settle();
+			if (min == t) {
+				List<N> nodes = new ArrayList<N>();
+				for (int v = t; v != s; v = space.parent(v))
+					nodes.add(g.node(v));
+				Collections.reverse(nodes);
+				return nodes;
+			}
+			
+			double cost = space.cost(min);
+			for (int i = 0; i < g.degree(min); i++) {
+				int child = g.target(min, i);
+				double childCost = cost + g.weight(min, i);
+				if (!space.isSettled(child) && childCost < space.cost(child))
+					space.reach(child, childCost, min, childCost);
+			}
+		}
+		return null; // no path found
+	}
+	
+	/**
+	 * Finds the cost of the cheapest path between two nodes in a DoubleWeightedGraph
+	 * 
+	 * @param g		: the graph on which to perform the search
+	 * @param src  	: the node to find a path from
+	 * @param dest 	: the node to find a path to
+	 * @param <N>	: the type of nodes in the given graph
+	 * @return the cost of the cheapest path from src to dest; Double.POSITIVE_INFINITY if either
+	 * 		src or dest are not in this graph or there is no path between these two nodes
+	 * @throws IllegalArgumentException if g is null
+	 */
+	public static <N> double shortestDistance(DoubleWeightedGraph<N> g, N src, N dest) {
+		if (g == null) throw new IllegalArgumentException();
+		int s = g.indexOf(src);
+		int t = g.indexOf(dest);
+		if (s < 0 || t < 0) return Double.POSITIVE_INFINITY;
+		
+		SearchSpace space = SearchSpace.forCurrentThread();
+		space.reset(g.size());
+		space.reach(s, 0, s, 0);
+		
+		while (!space.isEmpty()) {
+			int min = space.settle();
+			double cost = space.cost(min);
+			if (min == t) return cost;
+			
+			for (int i = 0; i < g.degree(min); i++) {
+				int child = g.target(min, i);
+				double childCost = cost + g.weight(min, i);
+				if (!space.isSettled(child) && childCost < space.cost(child))
+					space.reach(child, childCost, min, childCost);
+			}
+		}
+		return Double.POSITIVE_INFINITY; // no path found
+	}
+	
+	/**
+	 * @throws IllegalArgumentException if g is null or profile is not a profile of g
+	 */
+	private static void checkProfile(ProfiledGraph<?> g, int profile) {
+		if (g == null) throw new IllegalArgumentException();
+		if (profile < 0 || profile >= g.profileCount())
+			throw new IllegalArgumentException("No such profile: " + profile);
+	}
+	
+	/**
+	 * Heuristic estimates the cost of the cheapest path between two nodes for goal-directed search
+	 * 
+	 * @param <N> : the type of nodes being estimated
+	 */
+	public interface Heuristic<N> {
+		/**
+		 * @param node : the node a path would start from
+		 * @param dest : the node a path would end at
+		 * @return a lower bound on the cost of any path from node to dest
+		 */
+		double estimate(N node, N dest);
+	}
+	
+	/**
+	 * Label marks a node with the cost of some path leading to it. Unlike Path, a Label does not
+	 * remember the nodes along the way, which keeps searches that only need costs cheap.
+	 */
+	private static class Label<N> implements Comparable<Label<N>> {
+		public final N node; // the node this label is attached to
+		public final double cost; // cost of the path to node (or an estimate of a path through it)
+		
+		/**
+		 * Creates a new Label
+		 * 
+		 * @param node : the node being labeled
+		 * @param cost : the cost of reaching node
+		 */
+		public Label(N node, double cost) {
+			this.node = node;
+			this.cost = cost;
+		}
+		
+		@Override
+		public int compareTo(Label<N> other) {
+			return Double.compare(this.cost, other.cost);
+		}
+	}
+	
 	/**
 	 * Path represents a path from one node to another
 	 * 
@@ -75,13 +558,12 @@ public class GraphAlgos {
 	 * Representation Invariant:
 	 * 		nodes != null
 	 * 		nodes[0..nodes.size() - 1] != null
-	 * 		cost != null 
 	 * 
 	 * @author Nolan
 	 */
 	private static class Path<N> implements Comparable<Path<N>> {
 		public final List<N> nodes; // nodes in this path
-		public final Double cost; // cost of this path
+		public final double cost; // cost of this path
 		
 		/**
 		 * Creates a new Path
@@ -89,7 +571,7 @@ public class GraphAlgos {
 		 * @param node : the only node to be in this path
 		 * @param cost : the starting cost of this path
 		 */
-		public Path(N node, Double cost) {
+		public Path(N node, double cost) {
 			nodes = new ArrayList<N>();
 			nodes.add(node);
 			this.cost = cost;
@@ -101,7 +583,7 @@ public class GraphAlgos {
 		 * @param nodes : the nodes to be in this path
 		 * @param cost : the cost of this path
 		 */
-		public Path(List<N> nodes, Double cost) {
+		public Path(List<N> nodes, double cost) {
 			this.nodes = nodes;
 			this.cost = cost;
 		}
@@ -113,12 +595,12 @@ public class GraphAlgos {
 		 * @param cost : the cost to get from this path's end to the provided node
 		 * @return a new Path which is this path plus a new node
 		 */
-		public Path<N> addNode(N node, Double cost) {
+		public Path<N> addNode(N node, double cost) {
 			List<N> newPath = new ArrayList<N>();
 			for (N oldNode : this.nodes)
 				newPath.add(oldNode);
 			newPath.add(node);
-			Double newCost = this.cost + cost;
+			double newCost = this.cost + cost;
 			return new Path<N>(newPath, newCost);
 		}
 
@@ -130,7 +612,7 @@ public class GraphAlgos {
 		 */
 		@Override
 		public int compareTo(Path<N> other) {
-			return this.cost.compareTo(other.cost);
+			return Double.compare(this.cost, other.cost);
 		}
 	}
 }
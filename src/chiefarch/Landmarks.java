@@ -0,0 +1,150 @@
+package chiefarch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Landmarks is a table of shortest-path distances to and from a few chosen landmark nodes in a
+ * graph. By the triangle inequality these distances give lower bounds on the distance between any
+ * two nodes, which makes them a much tighter A* heuristic than straight-line distance wherever
+ * paths have to wind around obstacles (the ALT technique).
+ * 
+ * Landmarks are picked on the periphery of the graph: each new landmark is the node furthest from
+ * all of the landmarks picked so far.
+ * 
+ * @param N : the type of nodes in the underlying graph
+ * 
+ * Abstraction Function:
+ * 		fromLandmark[l * n + i] == distance from landmark l to node i of g
+ * 		toLandmark[l * n + i] == distance from node i of g to landmark l
+ * 		(where n == g.size(), and unreachable pairs are Double.POSITIVE_INFINITY)
+ * 
+ * Representation Invariant:
+ * 		fromLandmark.length == toLandmark.length == landmarks.length * g.size()
+ * 		toLandmark == fromLandmark (the same array) if g.isUndirected()
+ */
+public class Landmarks<N> implements GraphAlgos.Heuristic<N> {
+	
+	private final ProfiledGraph<N> g; // the graph whose nodes these Landmarks are indexed by
+	private final int[] landmarks; // node numbers of the landmarks
+	private final double[] fromLandmark;
+	private final double[] toLandmark;
+	
+	/**
+	 * Picks landmarks in a graph and precomputes distances to and from each of them
+	 * 
+	 * @param g     : the graph to pick landmarks in (later changes to g are not reflected)
+	 * @param count : the number of landmarks to pick (fewer are picked if g has fewer nodes)
+	 * @throws IllegalArgumentException if g is null or count is not positive
+	 */
+	public Landmarks(Graph<N, Double> g, int count) {
+		this(new ProfiledGraph<N>(g), ProfiledGraph.DISTANCE, count);
+	}
+	
+	/**
+	 * Picks landmarks in a ProfiledGraph and precomputes distances to and from each of them under
+	 * one of its weight profiles
+	 * 
+	 * @param g       : the graph to pick landmarks in
+	 * @param profile : the weight profile of g to measure distances with
+	 * @param count   : the number of landmarks to pick (fewer are picked if g has fewer nodes)
+	 * @throws IllegalArgumentException if g is null, profile is not a profile of g, or count is
+	 * 		not positive
+	 */
+	public Landmarks(ProfiledGraph<N> g, int profile, int count) {
+		if (g == null || count <= 0) throw new IllegalArgumentException();
+		this.g = g;
+		ProfiledGraph<N> reverse = g.reverse();
+		int n = g.size();
+		
+		count = Math.min(count, n);
+		landmarks = new int[count];
+		fromLandmark = new double[count * n];
+		// in an undirected graph, distances to a landmark are the same as distances from it
+		toLandmark = (reverse == g) ? fromLandmark : new double[count * n];
+		if (n == 0) return;
+		
+		// the first landmark is the node furthest from an arbitrary node; each one after that is
+		// the node whose nearest landmark is furthest away
+		double inf = Double.POSITIVE_INFINITY;
+		double[] nearest = GraphAlgos.distancesWithin(g, profile, 0, inf);
+		for (int l = 0; l < count; l++) {
+			landmarks[l] = furthest(nearest);
+			double[] from = GraphAlgos.distancesWithin(g, profile, landmarks[l], inf);
+			System.arraycopy(from, 0, fromLandmark, l * n, n);
+			if (toLandmark != fromLandmark) {
+				double[] to = GraphAlgos.distancesWithin(reverse, profile, landmarks[l], inf);
+				System.arraycopy(to, 0, toLandmark, l * n, n);
+			}
+			for (int i = 0; i < n; i++)
+				nearest[i] = (l == 0) ? from[i] : Math.min(nearest[i], from[i]);
+		}
+	}
+	
+	/**
+	 * Estimates the distance between two nodes from the landmark tables
+	 * 
+	 * @param node : the node a path would start from
+	 * @param dest : the node a path would end at
+	 * @return a lower bound on the distance from node to dest (0 if either node was not in the
+	 * 		graph when these Landmarks were computed)
+	 */
+	@Override
+	public double estimate(N node, N dest) {
+		int v = g.indexOf(node);
+		int t = g.indexOf(dest);
+		if (v < 0 || t < 0) return 0;
+		
+		int n = g.size();
+		double bound = 0;
+		for (int l = 0; l < landmarks.length; l++) {
+			// d(l, t) <= d(l, v) + d(v, t)  and  d(v, l) <= d(v, t) + d(t, l)
+			double before = fromLandmark[l * n + t] - fromLandmark[l * n + v];
+			double after = toLandmark[l * n + v] - toLandmark[l * n + t];
+			if (before > bound && before != Double.POSITIVE_INFINITY) bound = before;
+			if (after > bound && after != Double.POSITIVE_INFINITY) bound = after;
+		}
+		return bound;
+	}
+	
+	/**
+	 * Fetches the landmarks that were picked
+	 * 
+	 * @return a list of the landmark nodes in the order they were picked
+	 */
+	public List<N> landmarkNodes() {
+		List<N> result = new ArrayList<N>();
+		for (int landmark : landmarks)
+			result.add(g.node(landmark));
+		return result;
+	}
+	
+	/**
+	 * Reports how much memory the distance tables take up
+	 * 
+	 * @return the number of bytes used by the primitive distance arrays
+	 */
+	public long memoryBytes() {
+		long tables = fromLandmark.length + ((toLandmark == fromLandmark) ? 0 : toLandmark.length);
+		return 8L * tables + 4L * landmarks.length;
+	}
+	
+	@Override
+	public String toString() {
+		return landmarks.length + " landmarks over " + g.size() + " nodes ("
+				+ (memoryBytes() + 1023) / 1024 + " KB of distance tables)";
+	}
+	
+	/**
+	 * @param distances : the distances to consider
+	 * @return the index of the largest finite distance (0 if there are none)
+	 */
+	private static int furthest(double[] distances) {
+		int best = 0;
+		for (int i = 1; i < distances.length; i++)
+			if (distances[i] != Double.POSITIVE_INFINITY
+					&& (distances[best] == Double.POSITIVE_INFINITY || distances[i] > distances[best]))
+				best = i;
+		return best;
+	}
+}
@@ -0,0 +1,543 @@
+package chiefarch;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ProfiledGraph is a compact, immutable directed graph whose edges carry several weights at once,
+ * one per weight profile (for example plain distance, or distance with penalties for stairs).
+ * Every profile shares the same topology, so adding a profile costs one primitive array of
+ * weights rather than a whole new graph.
+ *
+ * Nodes are numbered 0 to size() - 1, and each edge is numbered so that the edges leaving node v
+ * are edgeStart(v) through edgeEnd(v) - 1. Searches can walk the graph with these numbers alone.
+ *
+ * In undirected mode, each two-way edge is owned by one of its ends, which lists it among its own
+ * edges before the edges it borrows from its neighbors. The weight slot of an owned edge follows
+ * from its number, so only borrowed edges need their slot stored.
+ *
+ * @param N : the type of nodes in this graph
+ *
+ * Abstraction Function:
+ * 		Node i is nodes.get(i), and index.get(nodes.get(i)) == i
+ * 		Edge e leads from node v to node targets[e] for every e in [start[v], start[v + 1])
+ * 		The weight of edge e from node v under profile p is weights.get(p)[slot], and that
+ * 			profile is named profileNames.get(p), where slot is
+ * 			e if ownedStart == null,
+ * 			ownedStart[v] + (e - start[v]) if that is less than ownedStart[v + 1] (e is owned by v),
+ * 			borrowed[e - ownedStart[v + 1]] otherwise (e is borrowed from targets[e])
+ * 		Edges in asymmetric are those undirected mode found no equally weighted partner for
+ *
+ * Representation Invariant:
+ * 		start.length == nodes.size() + 1, start[0] == 0, and start is non-decreasing
+ * 		targets.length == start[nodes.size()]
+ * 		ownedStart == null and borrowed == null, or
+ * 			ownedStart.length == start.length, ownedStart[0] == 0, and for every v
+ * 				0 <= ownedStart[v + 1] - ownedStart[v] <= start[v + 1] - start[v],
+ * 			slotCount == ownedStart[nodes.size()], and
+ * 			borrowed.length == targets.length - slotCount, with every element in [0, slotCount)
+ * 		ownedStart == null implies slotCount == targets.length
+ * 		weights.get(p).length == slotCount for every profile p
+ * 		profileNames.size() == weights.size() and profile names are distinct
+ */
+public class ProfiledGraph<N> {
+
+	// the profile holding the edge labels of the graph this ProfiledGraph was built from
+	public static final int DISTANCE = 0;
+	public static final String DISTANCE_NAME = "distance";
+	
+	private final List<N> nodes;
+	private final Map<N, Integer> index;
+	private final int[] start;
+	private final int[] targets;
+	private final int[] ownedStart; // null when every edge has a slot of its own
+	private final int[] borrowed;
+	private final int slotCount;
+	private final List<String> profileNames;
+	private final List<double[]> weights;
+	private final List<Map.Entry<N, N>> asymmetric;
+	
+	/**
+	 * Creates a new ProfiledGraph with the same nodes and edges as a Graph. Where the Graph has
+	 * several edges from one node to another, only the cheapest is kept. The edge labels become
+	 * the DISTANCE profile.
+	 * 
+	 * @param g : the graph to copy
+	 * @throws IllegalArgumentException if g is null or has a negative or NaN edge label
+	 */
+	public ProfiledGraph(Graph<N, Double> g) {
+		this(new DoubleWeightedGraph<N>(g), false);
+	}
+	
+	/**
+	 * Creates a new ProfiledGraph with the same nodes and edges as a DoubleWeightedGraph. The edge
+	 * weights become the DISTANCE profile.
+	 * 
+	 * @param g : the graph to copy
+	 * @throws IllegalArgumentException if g is null or has a negative or NaN edge weight
+	 */
+	public ProfiledGraph(DoubleWeightedGraph<N> g) {
+		this(g, false);
+	}
+	
+	/**
+	 * Creates a new ProfiledGraph with the same nodes and edges as a DoubleWeightedGraph. The edge
+	 * weights become the DISTANCE profile.
+	 * 
+	 * In undirected mode, every pair of edges running both ways between two nodes with the same
+	 * weight is stored as a single two-way edge, whose weight is kept once per profile instead of
+	 * twice. Only the weights shrink: neighbors are still listed from both ends, so the topology
+	 * takes a little more room rather than less, and searches see the same directed edges either
+	 * way (though not necessarily in the order g lists them). Edges without such a partner are
+	 * kept as they are and can be listed with asymmetricEdges().
+	 * 
+	 * @param g          : the graph to copy
+	 * @param undirected : whether to store two-way edges once
+	 * @throws IllegalArgumentException if g is null or has a negative or NaN edge weight
+	 */
+	public ProfiledGraph(DoubleWeightedGraph<N> g, boolean undirected) {
+		this(g, undirected, null);
+	}
+	
+	/**
+	 * Creates a new ProfiledGraph as ProfiledGraph(g, undirected) does, sharing the node table of
+	 * an earlier ProfiledGraph if g numbers its nodes the same way
+	 * 
+	 * @param previous : a graph to share nodes with, or null
+	 */
+	ProfiledGraph(DoubleWeightedGraph<N> g, boolean undirected, ProfiledGraph<N> previous) {
+		if (g == null) throw new IllegalArgumentException();
+		if (previous != null && previous.nodes.equals(g.nodes())) {
+			nodes = previous.nodes;
+			index = previous.index;
+		} else {
+			nodes = Collections.unmodifiableList(new ArrayList<N>(g.nodes()));
+			index = new HashMap<N, Integer>();
+			for (int v = 0; v < g.size(); v++)
+				index.put(g.node(v), v);
+		}
+		
+		int n = g.size();
+		start = new int[n + 1];
+		for (int v = 0; v < n; v++)
+			start[v + 1] = start[v] + g.degree(v);
+		
+		int[] plain = new int[start[n]];
+		double[] edgeWeights = new double[plain.length];
+		for (int v = 0; v < n; v++) {
+			for (int i = 0; i < g.degree(v); i++) {
+				plain[start[v] + i] = g.target(v, i);
+				edgeWeights[start[v] + i] = checkWeight(g.weight(v, i));
+			}
+		}
+		
+		List<Map.Entry<N, N>> oneWay = new ArrayList<Map.Entry<N, N>>();
+		double[] distances = edgeWeights;
+		if (!undirected) {
+			targets = plain;
+			ownedStart = null;
+			borrowed = null;
+			slotCount = targets.length;
+		} else {
+			// pair each edge with an equally weighted edge running the other way; the edge met first
+			// owns the pair, and its partner borrows its slot
+			int[] owner = new int[plain.length]; // for a borrowed edge, the edge that owns its pair
+			Arrays.fill(owner, -1);
+			ownedStart = new int[n + 1];
+			for (int v = 0; v < n; v++) {
+				ownedStart[v + 1] = ownedStart[v];
+				for (int e = start[v]; e < start[v + 1]; e++) {
+					if (owner[e] >= 0) continue;
+					int back = find(plain, plain[e], v);
+					if (back > e && owner[back] < 0 && edgeWeights[back] == edgeWeights[e]) {
+						owner[back] = e;
+					} else if (back != e) {
+						oneWay.add(new AbstractMap.SimpleImmutableEntry<N, N>(nodes.get(v), nodes.get(plain[e])));
+					}
+					ownedStart[v + 1]++;
+				}
+			}
+			slotCount = ownedStart[n];
+			
+			// list the owned edges of each node first, in slot order, then the borrowed ones; an
+			// owner always comes before the edge borrowing from it, so its slot is known by then
+			targets = new int[plain.length];
+			borrowed = new int[plain.length - slotCount];
+			distances = new double[slotCount];
+			int[] slotOf = new int[plain.length];
+			for (int v = 0; v < n; v++) {
+				int owned = start[v];
+				int lent = start[v] + (ownedStart[v + 1] - ownedStart[v]);
+				for (int e = start[v]; e < start[v + 1]; e++) {
+					if (owner[e] < 0) {
+						slotOf[e] = ownedStart[v] + (owned - start[v]);
+						distances[slotOf[e]] = edgeWeights[e];
+						targets[owned++] = plain[e];
+					} else {
+						borrowed[lent - ownedStart[v + 1]] = slotOf[owner[e]];
+						targets[lent++] = plain[e];
+					}
+				}
+			}
+		}
+		asymmetric = Collections.unmodifiableList(oneWay);
+		
+		profileNames = new CopyOnWriteArrayList<String>();
+		weights = new CopyOnWriteArrayList<double[]>();
+		profileNames.add(DISTANCE_NAME);
+		weights.add(distances);
+	}
+	
+	/**
+	 * Creates a new ProfiledGraph from raw parts (used to derive one graph from another)
+	 */
+	private ProfiledGraph(List<N> nodes, Map<N, Integer> index, int[] start, int[] targets,
+			List<String> profileNames, List<double[]> weights) {
+		this.nodes = nodes;
+		this.index = index;
+		this.start = start;
+		this.targets = targets;
+		this.ownedStart = null;
+		this.borrowed = null;
+		this.slotCount = targets.length;
+		this.profileNames = profileNames;
+		this.weights = weights;
+		this.asymmetric = Collections.emptyList();
+	}
+	
+	/**
+	 * Creates a graph sharing the nodes, edges and weight profiles this graph has now, to which
+	 * profiles can be added without changing this graph
+	 *
+	 * @return a new graph with the same topology and profiles as this one
+	 */
+	ProfiledGraph<N> shareTopology() {
+		return new ProfiledGraph<N>(this);
+	}
+	
+	/**
+	 * Creates a new ProfiledGraph sharing the topology and the current profiles of another
+	 */
+	private ProfiledGraph(ProfiledGraph<N> other) {
+		this.nodes = other.nodes;
+		this.index = other.index;
+		this.start = other.start;
+		this.targets = other.targets;
+		this.ownedStart = other.ownedStart;
+		this.borrowed = other.borrowed;
+		this.slotCount = other.slotCount;
+		this.asymmetric = other.asymmetric;
+		synchronized (other) {
+			this.profileNames = new CopyOnWriteArrayList<String>(other.profileNames);
+			this.weights = new CopyOnWriteArrayList<double[]>(other.weights);
+		}
+	}
+	
+	/**
+	 * Adds a new weight profile to this graph. Profiles may be added while searches are running
+	 * on other profiles.
+	 *
+	 * @param name    : the name of the new profile
+	 * @param weigher : computes the weight of each edge under the new profile
+	 * @return the number of the new profile, for use with the other methods of this graph
+	 * @throws IllegalArgumentException if a profile with this name already exists, if weigher
+	 * 		gives any edge a negative or NaN weight, or if weigher gives the two directions of an
+	 * 		edge stored once in undirected mode different weights
+	 */
+	public synchronized int addProfile(String name, EdgeWeigher<N> weigher) {
+		if (profileNames.contains(name))
+			throw new IllegalArgumentException("Profile already exists: " + name);
+		
+		double[] distances = weights.get(DISTANCE);
+		double[] profile = new double[slotCount];
+		boolean[] weighed = new boolean[slotCount];
+		for (int v = 0; v < nodes.size(); v++) {
+			for (int e = start[v]; e < start[v + 1]; e++) {
+				int slot = slot(v, e);
+				double weight = checkWeight(weigher.weigh(nodes.get(v), nodes.get(targets[e]), distances[slot]));
+				if (weighed[slot] && profile[slot] != weight)
+					throw new IllegalArgumentException("Two-way edge weighed differently each way: "
+							+ nodes.get(v) + " -> " + nodes.get(targets[e]));
+				profile[slot] = weight;
+				weighed[slot] = true;
+			}
+		}
+		
+		// publish the weights before the name so that a visible name always has weights
+		weights.add(profile);
+		profileNames.add(name);
+		return profileNames.size() - 1;
+	}
+	
+	/**
+	 * Looks up a weight profile by name
+	 *
+	 * @param name : the name of a profile
+	 * @return the number of that profile, or -1 if there is no profile by that name
+	 */
+	public int profile(String name) {
+		return profileNames.indexOf(name);
+	}
+	
+	/**
+	 * Fetches the names of all weight profiles of this graph
+	 *
+	 * @return a list where element p is the name of profile p
+	 */
+	public List<String> profileNames() {
+		return Collections.unmodifiableList(profileNames);
+	}
+	
+	/**
+	 * @return the number of weight profiles of this graph
+	 */
+	public int profileCount() {
+		return profileNames.size();
+	}
+	
+	/**
+	 * @return the number of nodes in this graph
+	 */
+	public int size() {
+		return nodes.size();
+	}
+	
+	/**
+	 * @param node : a node in this graph
+	 * @return the number of node, or -1 if it is not in this graph
+	 */
+	public int indexOf(N node) {
+		Integer i = index.get(node);
+		return (i == null) ? -1 : i;
+	}
+	
+	/**
+	 * @param v : the number of a node in this graph
+	 * @return the node numbered v
+	 */
+	public N node(int v) {
+		return nodes.get(v);
+	}
+	
+	/**
+	 * @param v : the number of a node in this graph
+	 * @return the number of the first edge leaving v
+	 */
+	public int edgeStart(int v) {
+		return start[v];
+	}
+	
+	/**
+	 * @param v : the number of a node in this graph
+	 * @return one more than the number of the last edge leaving v
+	 */
+	public int edgeEnd(int v) {
+		return start[v + 1];
+	}
+	
+	/**
+	 * @param e : the number of an edge in this graph
+	 * @return the number of the node edge e leads to
+	 */
+	public int target(int e) {
+		return targets[e];
+	}
+	
+	/**
+	 * Fetches the weight of an edge. Searches that know which node the edge leaves should look up
+	 * its slot with slot(v, e) instead, since this has to find that node first.
+	 *
+	 * @param profile : the number of a weight profile of this graph
+	 * @param e       : the number of an edge in this graph
+	 * @return the weight of edge e under profile
+	 */
+	public double weight(int profile, int e) {
+		return weights.get(profile)[slot(source(e), e)];
+	}
+	
+	/**
+	 * Fetches the weights of every edge under a profile. The array must not be modified.
+	 *
+	 * @param profile : the number of a weight profile of this graph
+	 * @return an array where element slot(v, e) is the weight of edge e from v under profile
+	 */
+	double[] weights(int profile) {
+		return weights.get(profile);
+	}
+	
+	/**
+	 * Finds where the weight of an edge is kept in the arrays returned by weights(profile)
+	 *
+	 * @param v : the number of a node in this graph
+	 * @param e : the number of an edge leaving v
+	 * @return the slot of edge e
+	 */
+	int slot(int v, int e) {
+		if (ownedStart == null) return e;
+		int slot = ownedStart[v] + (e - start[v]);
+		return (slot < ownedStart[v + 1]) ? slot : borrowed[e - ownedStart[v + 1]];
+	}
+	
+	/**
+	 * Identifies whether every edge of this graph is half of a two-way edge, stored once
+	 * 
+	 * @return true if this graph was built in undirected mode and found no asymmetric edges
+	 */
+	public boolean isUndirected() {
+		return ownedStart != null && asymmetric.isEmpty();
+	}
+	
+	/**
+	 * Fetches the edges that undirected mode could not pair with an equally weighted edge
+	 * running the other way (always empty outside of undirected mode)
+	 * 
+	 * @return an unmodifiable list of (src, dest) pairs, one for each such edge from src to dest
+	 */
+	public List<Map.Entry<N, N>> asymmetricEdges() {
+		return asymmetric;
+	}
+	
+	/**
+	 * Reports how much memory the topology and weight profiles of this graph take up
+	 * 
+	 * @return the number of bytes used by the primitive arrays of this graph
+	 */
+	public long memoryBytes() {
+		long topology = start.length + targets.length
+				+ ((ownedStart == null) ? 0 : ownedStart.length + borrowed.length);
+		return 4L * topology + 8L * slotCount * profileCount();
+	}
+	
+	/**
+	 * Fetches the weight of the edge from one node to another
+	 *
+	 * @param profile : the number of a weight profile of this graph
+	 * @param src     : the node at the tail end of the edge
+	 * @param dest    : the node at the head of the edge
+	 * @return the weight of the edge from src to dest under profile, or Double.NaN if there is no
+	 * 		such edge
+	 */
+	public double weight(int profile, N src, N dest) {
+		int v = indexOf(src);
+		int w = indexOf(dest);
+		if (v < 0 || w < 0) return Double.NaN;
+		int e = find(v, w);
+		return (e < 0) ? Double.NaN : weights.get(profile)[slot(v, e)];
+	}
+	
+	/**
+	 * Copies the nodes and DISTANCE weights of this graph into a DoubleWeightedGraph, which numbers
+	 * its nodes the same way as this graph
+	 * 
+	 * @return a new, modifiable copy of this graph
+	 */
+	public DoubleWeightedGraph<N> toDoubleWeightedGraph() {
+		DoubleWeightedGraph<N> copy = new DoubleWeightedGraph<N>();
+		for (N node : nodes)
+			copy.addNode(node);
+		for (int v = 0; v < nodes.size(); v++)
+			for (int e = start[v]; e < start[v + 1]; e++)
+				copy.addEdge(nodes.get(v), nodes.get(targets[e]), weights.get(DISTANCE)[slot(v, e)]);
+		return copy;
+	}
+	
+	/**
+	 * Creates a graph with every edge of this graph turned around. The new graph shares its nodes
+	 * with this one and has a copy of every profile this graph has now.
+	 *
+	 * @return the reverse of this graph (this graph itself if isUndirected())
+	 */
+	public ProfiledGraph<N> reverse() {
+		if (isUndirected()) return this;
+		int n = nodes.size();
+		int[] reverseStart = new int[n + 1];
+		for (int e = 0; e < targets.length; e++)
+			reverseStart[targets[e] + 1]++;
+		for (int v = 0; v < n; v++)
+			reverseStart[v + 1] += reverseStart[v];
+		
+		int[] fill = new int[n];
+		int[] reverseTargets = new int[targets.length];
+		int[] moved = new int[targets.length]; // where each edge of this graph ends up
+		for (int v = 0; v < n; v++) {
+			for (int e = start[v]; e < start[v + 1]; e++) {
+				int w = targets[e];
+				moved[e] = reverseStart[w] + fill[w]++;
+				reverseTargets[moved[e]] = v;
+			}
+		}
+		
+		List<String> reverseNames = new CopyOnWriteArrayList<String>(profileNames);
+		List<double[]> reverseWeights = new CopyOnWriteArrayList<double[]>();
+		for (int p = 0; p < reverseNames.size(); p++) {
+			double[] reverse = new double[targets.length];
+			for (int v = 0; v < n; v++)
+				for (int e = start[v]; e < start[v + 1]; e++)
+					reverse[moved[e]] = weights.get(p)[slot(v, e)];
+			reverseWeights.add(reverse);
+		}
+		return new ProfiledGraph<N>(nodes, index, reverseStart, reverseTargets, reverseNames,
+				reverseWeights);
+	}
+	
+	/**
+	 * @return the number of the edge from node v to node w, or -1 if there is no such edge
+	 */
+	private int find(int v, int w) {
+		return find(targets, v, w);
+	}
+	
+	/**
+	 * @return the number of the edge from node v to node w among edges numbered by start and
+	 * 		leading to edgeTargets, or -1 if there is no such edge
+	 */
+	private int find(int[] edgeTargets, int v, int w) {
+		for (int e = start[v]; e < start[v + 1]; e++)
+			if (edgeTargets[e] == w) return e;
+		return -1;
+	}
+	
+	/**
+	 * @return the number of the node edge e leaves
+	 */
+	private int source(int e) {
+		int low = 0;
+		int high = nodes.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (start[mid] <= e) low = mid;
+			else high = mid - 1;
+		}
+		return low;
+	}
+	
+	/**
+	 * @throws IllegalArgumentException if weight is not a valid edge weight
+	 */
+	private static double checkWeight(double weight) {
+		if (!(weight >= 0)) throw new IllegalArgumentException("Invalid edge weight: " + weight);
+		return weight;
+	}
+	
+	/**
+	 * EdgeWeigher computes the weight of edges under a new weight profile
+	 *
+	 * @param <N> : the type of nodes in the graph
+	 */
+	public interface EdgeWeigher<N> {
+		/**
+		 * @param src      : the node at the tail end of the edge
+		 * @param dest     : the node at the head of the edge
+		 * @param distance : the weight of the edge under the DISTANCE profile
+		 * @return the weight of the edge under the new profile (Double.POSITIVE_INFINITY to make
+		 * 		the edge unusable)
+		 */
+		double weigh(N src, N dest, double distance);
+	}
+}
@@ -0,0 +1,47 @@
+package chiefarch;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Region describes one piece of a map made of several regions (say one campus, or the streets
+ * between two campuses): where to find its building and path data, and which of its locations
+ * it shares with neighbouring regions. Every region uses the same coordinate system, so a
+ * boundary location is simply a point that appears in the paths of more than one region.
+ */
+public class Region {
+
+	// name of this region, unique among the regions of a map
+	public final String name;
+	
+	// name of the file containing building data for this region, in CampusParser's format
+	public final String buildingsFile;
+	
+	// name of the file containing path data for this region, in CampusParser's format
+	public final String pathsFile;
+	
+	// locations on this region's paths through which routes may enter or leave it
+	public final List<Point2D.Double> boundary;
+	
+	/**
+	 * Creates a new Region
+	 *
+	 * @param name          : the name of this region
+	 * @param buildingsFile : name of file containing building data
+	 * @param pathsFile     : name of file containing path data
+	 * @param boundary      : locations through which routes may enter or leave this region
+	 */
+	public Region(String name, String buildingsFile, String pathsFile, List<Point2D.Double> boundary) {
+		this.name = name;
+		this.buildingsFile = buildingsFile;
+		this.pathsFile = pathsFile;
+		this.boundary = Collections.unmodifiableList(new ArrayList<Point2D.Double>(boundary));
+	}
+	
+	@Override
+	public String toString() {
+		return name + " (" + boundary.size() + " boundary locations)";
+	}
+}
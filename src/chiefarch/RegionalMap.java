@@ -0,0 +1,385 @@
+package chiefarch;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import chiefarch.CampusParser.MalformedDataException;
+
+/**
+ * RegionalMap represents a map made of several regions, each stored as its own CampusMap, and can
+ * find routes between buildings anywhere on it. Regions are loaded the first time a route needs
+ * them and dropped again once they have gone unused for a while, so memory use follows the
+ * regions actually in use rather than the size of the whole map.
+ *
+ * Routes that leave a region do so through the boundary locations declared for it. Walking
+ * distances between the boundary locations of each region are computed once, when the
+ * RegionalMap is created, and form a small overlay graph. A route is found by searching the
+ * overlay graph joined to the start and end buildings, then filling in each leg of the result
+ * from the region it crosses.
+ *
+ * Abstraction Function:
+ * 		The map is the union of the CampusMaps described by regions.values(), joined where they
+ * 			share boundary locations
+ * 		The building abbreviated b is buildings.get(b), in region buildingRegions.get(b)
+ * 		overlay.get(u).get(v) is the shortest walk from boundary location u to boundary location
+ * 			v that stays within a single region, and the region it stays within
+ * 		loaded holds the regions currently in memory, least recently used first
+ *
+ * Representation Invariant:
+ * 		regions, buildings, buildingRegions, overlay, loaded != null
+ * 		buildings.keySet() equals buildingRegions.keySet()
+ * 		every value of buildingRegions and every key of loaded is a key of regions
+ * 		idleMillis >= 0
+ */
+public class RegionalMap implements RouteMap {
+
+	// the regions of this map, by name
+	private final Map<String, Region> regions;
+	
+	// every building on this map, by abbreviation, and the name of the region it is in
+	private final Map<String, Building> buildings;
+	private final Map<String, String> buildingRegions;
+	
+	// finds buildings by parts of their abbreviations and names
+	private final BuildingIndex index;
+	
+	// shortest single-region walks between boundary locations
+	private final Map<Point2D.Double, Map<Point2D.Double, Leg>> overlay;
+	
+	// regions in memory and when they were last used, least recently used first
+	private final LinkedHashMap<String, Loaded> loaded;
+	
+	// how long a region may go unused before it is dropped from memory
+	private final long idleMillis;
+	
+	/**
+	 * Creates a new RegionalMap, reading every region once to find its buildings and the walking
+	 * distances between its boundary locations
+	 *
+	 * @param regions    : the regions making up the map
+	 * @param idleMillis : how long a region may go unused, in milliseconds, before it is dropped
+	 * 		from memory
+	 * @throws MalformedDataException if any region's data files are malformed
+	 * @throws IllegalArgumentException if idleMillis is negative, two regions have the same name,
+	 * 		two buildings have the same abbreviation, or a boundary location is not on the paths of
+	 * 		its region
+	 */
+	public RegionalMap(List<Region> regions, long idleMillis) throws MalformedDataException {
+		if (idleMillis < 0) throw new IllegalArgumentException("Negative idle time: " + idleMillis);
+		this.regions = new LinkedHashMap<String, Region>();
+		this.buildings = new HashMap<String, Building>();
+		this.buildingRegions = new HashMap<String, String>();
+		this.overlay = new HashMap<Point2D.Double, Map<Point2D.Double, Leg>>();
+		this.loaded = new LinkedHashMap<String, Loaded>(16, 0.75f, true);
+		this.idleMillis = idleMillis;
+		
+		for (Region region : regions) {
+			if (this.regions.put(region.name, region) != null)
+				throw new IllegalArgumentException("Duplicate region: " + region.name);
+			
+			CampusMap map = new CampusMap(region.buildingsFile, region.pathsFile);
+			for (String abbrev : map.getBuildingAbbrevs()) {
+				if (buildings.containsKey(abbrev))
+					throw new IllegalArgumentException("Duplicate building: " + abbrev);
+				buildings.put(abbrev, new Building(map.getFullName(abbrev),
+						map.locationOf(abbrev).x, map.locationOf(abbrev).y));
+				buildingRegions.put(abbrev, region.name);
+			}
+			
+			for (Point2D.Double u : region.boundary) {
+				if (!map.hasLocation(u))
+					throw new IllegalArgumentException("Boundary location " + u + " is not on the paths of "
+							+ region.name);
+				double[] distances = map.distancesFrom(u, region.boundary);
+				for (int i = 0; i < distances.length; i++)
+					addLeg(overlay, u, region.boundary.get(i), region.name, distances[i]);
+			}
+		}
+		index = new BuildingIndex(buildings);
+	}
+	
+	/**
+	 * Finds the shortest route from one building to another, which may cross any number of
+	 * regions
+	 *
+	 * @param start : the abbreviation for the building from which we start our journey
+	 * @param end   : the abbreviation for the destination building
+	 * @return a list of coordinate points as described by CampusMap.findRoute(start, end).
+	 * 		Returns null if there is no path between start and end (including the case that either
+	 * 		start or end are not buildings on this map)
+	 */
+	public List<Point2D.Double> findRoute(String start, String end) {
+		RouteGeometry route = findRouteGeometry(start, end);
+		if (route == null) return null;
+		List<Point2D.Double> points = route.points();
+		return points.subList(1, points.size());
+	}
+	
+	/**
+	 * Finds the shortest route from one building to another, which may cross any number of
+	 * regions, along with the walking distance from start to every location along it
+	 *
+	 * @param start : the abbreviation for the building from which we start our journey
+	 * @param end   : the abbreviation for the destination building
+	 * @return the geometry of the route, starting with the location of start itself. Returns null
+	 * 		if there is no path between start and end (including the case that either start or end
+	 * 		are not buildings on this map)
+	 */
+	public RouteGeometry findRouteGeometry(String start, String end) {
+		if (!buildings.containsKey(start) || !buildings.containsKey(end)) return null;
+		Point2D.Double a = buildings.get(start).location;
+		Point2D.Double b = buildings.get(end).location;
+		Region startRegion = regions.get(buildingRegions.get(start));
+		Region endRegion = regions.get(buildingRegions.get(end));
+		
+		// join the start and end buildings to the boundary of their regions (and to each other,
+		// if they share one)
+		Map<Point2D.Double, Map<Point2D.Double, Leg>> legs = new HashMap<Point2D.Double, Map<Point2D.Double, Leg>>();
+		List<Point2D.Double> targets = new ArrayList<Point2D.Double>(startRegion.boundary);
+		if (startRegion == endRegion) targets.add(b);
+		double[] distances = region(startRegion.name).distancesFrom(a, targets);
+		for (int i = 0; i < distances.length; i++)
+			addLeg(legs, a, targets.get(i), startRegion.name, distances[i]);
+		
+		CampusMap endMap = region(endRegion.name);
+		for (Point2D.Double u : endRegion.boundary)
+			addLeg(legs, u, b, endRegion.name, endMap.distancesFrom(u, Collections.singletonList(b))[0]);
+		
+		// search the overlay graph with the start and end buildings joined to it
+		DoubleWeightedGraph<Point2D.Double> graph = new DoubleWeightedGraph<Point2D.Double>();
+		graph.addNode(a);
+		graph.addNode(b);
+		addEdges(graph, overlay);
+		addEdges(graph, legs);
+		List<Point2D.Double> stops = GraphAlgos.runDijsktra(graph, a, b);
+		if (stops == null) return null;
+		
+		// fill in each leg of the route from the region it crosses, measuring each path segment
+		// in the region it belongs to
+		List<Point2D.Double> points = new ArrayList<Point2D.Double>();
+		List<Double> walked = new ArrayList<Double>();
+		points.add(a);
+		walked.add(0.0);
+		Point2D.Double from = a;
+		for (Point2D.Double to : stops) {
+			Leg leg = shorter(legOf(legs, from, to), legOf(overlay, from, to));
+			CampusMap map = region(leg.region);
+			Point2D.Double previous = from;
+			for (Point2D.Double point : map.findRoute(from, to)) {
+				walked.add(walked.get(walked.size() - 1) + map.distanceBetween(previous, point));
+				points.add(point);
+				previous = point;
+			}
+			from = to;
+		}
+		
+		double[] cumulative = new double[walked.size()];
+		for (int i = 0; i < cumulative.length; i++)
+			cumulative[i] = walked.get(i);
+		return new RouteGeometry(points, cumulative);
+	}
+	
+	/**
+	 * Fetches a list of all buildings on this map
+	 *
+	 * @return a sorted, unmodifiable list of abbreviated building names
+	 */
+	public List<String> getBuildingAbbrevs() {
+		return index.abbrevs();
+	}
+	
+	/**
+	 * Finds the buildings on this map whose abbreviations or full names contain some text
+	 *
+	 * @param query : the text to look for, ignoring case
+	 * @param limit : the most buildings to return
+	 * @return the abbreviations of up to limit matching buildings, best matches first (see
+	 * 		BuildingIndex.search)
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	public List<String> searchBuildings(String query, int limit) {
+		return index.search(query, limit);
+	}
+	
+	/**
+	 * Fetches the full name of a building by passing in its abbreviation
+	 *
+	 * @param abbrev : a building name abbreviation
+	 * @return the full name of a building
+	 */
+	public String getFullName(String abbrev) {
+		return buildings.get(abbrev).name;
+	}
+	
+	/**
+	 * Fetches the location of a building on this map
+	 *
+	 * @param building : an abbreviated building name
+	 * @return the coordinates of the specified building
+	 */
+	public Point2D.Double locationOf(String building) {
+		return buildings.get(building).location;
+	}
+	
+	/**
+	 * Identifies whether or not a specified building is a part of this map
+	 *
+	 * @param building : the abbreviated name of the building in question
+	 * @return true if this building is on this map, false otherwise
+	 */
+	public boolean hasBuilding(String building) {
+		return buildings.containsKey(building);
+	}
+	
+	/**
+	 * Fetches the name of the region a building is in
+	 *
+	 * @param building : an abbreviated building name
+	 * @return the name of the region containing building, or null if building is not on this map
+	 */
+	public String regionOf(String building) {
+		return buildingRegions.get(building);
+	}
+	
+	/**
+	 * Fetches the names of the regions currently in memory
+	 *
+	 * @return a list of region names, least recently used first
+	 */
+	public synchronized List<String> getLoadedRegions() {
+		evictIdle(System.currentTimeMillis());
+		return new ArrayList<String>(loaded.keySet());
+	}
+	
+	/**
+	 * Drops every region that has gone unused for longer than this map's idle time. This also
+	 * happens whenever a region is loaded or used, so it need only be called to free memory
+	 * while no routes are being found.
+	 */
+	public synchronized void evictIdle() {
+		evictIdle(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Reports the size of the overlay graph joining the regions of this map
+	 *
+	 * @return the number of single-region walks between boundary locations
+	 */
+	public int overlaySize() {
+		int legs = 0;
+		for (Map<Point2D.Double, Leg> from : overlay.values())
+			legs += from.size();
+		return legs;
+	}
+	
+	/**
+	 * Fetches a region's CampusMap, loading it if it is not in memory
+	 *
+	 * @param name : the name of a region of this map
+	 * @return the CampusMap for that region
+	 * @throws IllegalStateException if the region's data files have become malformed since this
+	 * 		RegionalMap was created
+	 */
+	private synchronized CampusMap region(String name) {
+		long now = System.currentTimeMillis();
+		Loaded region = loaded.get(name);
+		if (region == null) {
+			Region r = regions.get(name);
+			try {
+				region = new Loaded(new CampusMap(r.buildingsFile, r.pathsFile));
+			} catch (MalformedDataException e) {
+				throw new IllegalStateException("Region " + name + " can no longer be read", e);
+			}
+			loaded.put(name, region);
+		}
+		region.lastUsed = now;
+		evictIdle(now);
+		return region.map;
+	}
+	
+	/**
+	 * Drops every region last used more than idleMillis before now
+	 */
+	private void evictIdle(long now) {
+		// loaded is in access order, so idle regions are all at the front
+		while (!loaded.isEmpty()) {
+			Map.Entry<String, Loaded> eldest = loaded.entrySet().iterator().next();
+			if (now - eldest.getValue().lastUsed <= idleMillis) break;
+			loaded.remove(eldest.getKey());
+		}
+	}
+	
+	/**
+	 * Records a single-region walk, unless a walk between the same locations that is no longer
+	 * is already recorded
+	 */
+	private static void addLeg(Map<Point2D.Double, Map<Point2D.Double, Leg>> legs, Point2D.Double from,
+			Point2D.Double to, String region, double distance) {
+		if (from.equals(to) || Double.isInfinite(distance)) return;
+		if (!legs.containsKey(from)) legs.put(from, new HashMap<Point2D.Double, Leg>());
+		Leg leg = legs.get(from).get(to);
+		if (leg == null || distance < leg.distance) legs.get(from).put(to, new Leg(region, distance));
+	}
+	
+	/**
+	 * @return the walk from one location to another recorded in legs, or null if there is none
+	 */
+	private static Leg legOf(Map<Point2D.Double, Map<Point2D.Double, Leg>> legs, Point2D.Double from,
+			Point2D.Double to) {
+		Map<Point2D.Double, Leg> fromLegs = legs.get(from);
+		return (fromLegs == null) ? null : fromLegs.get(to);
+	}
+	
+	/**
+	 * @return the shorter of two walks, either of which may be null (but not both)
+	 */
+	private static Leg shorter(Leg a, Leg b) {
+		if (a == null) return b;
+		if (b == null) return a;
+		return (b.distance < a.distance) ? b : a;
+	}
+	
+	/**
+	 * Adds an edge to graph for every walk recorded in legs
+	 */
+	private static void addEdges(DoubleWeightedGraph<Point2D.Double> graph,
+			Map<Point2D.Double, Map<Point2D.Double, Leg>> legs) {
+		for (Map.Entry<Point2D.Double, Map<Point2D.Double, Leg>> from : legs.entrySet()) {
+			graph.addNode(from.getKey());
+			for (Map.Entry<Point2D.Double, Leg> to : from.getValue().entrySet()) {
+				graph.addNode(to.getKey());
+				graph.addEdge(from.getKey(), to.getKey(), to.getValue().distance);
+			}
+		}
+	}
+	
+	/**
+	 * Leg is the shortest walk between two locations within a single region
+	 */
+	private static class Leg {
+		public final String region;
+		public final double distance;
+		
+		public Leg(String region, double distance) {
+			this.region = region;
+			this.distance = distance;
+		}
+	}
+	
+	/**
+	 * Loaded is a region in memory
+	 */
+	private static class Loaded {
+		public final CampusMap map;
+		public long lastUsed;
+		
+		public Loaded(CampusMap map) {
+			this.map = map;
+		}
+	}
+}
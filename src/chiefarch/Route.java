@@ -0,0 +1,35 @@
+package chiefarch;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+
+/**
+ * Route represents the answer to a route query on a CampusMap: the locations along the route
+ * and the version of the map that answered the query
+ */
+public class Route {
+
+	// locations along the route, not including the starting building (null if there is no route)
+	public final List<Point2D.Double> path;
+
+	// the number of the map version whose paths this route was found on
+	public final long version;
+
+	/**
+	 * Creates a new Route
+	 *
+	 * @param path    : locations along the route, or null if there is no route
+	 * @param version : the number of the map version that was searched
+	 */
+	public Route(List<Point2D.Double> path, long version) {
+		this.path = path;
+		this.version = version;
+	}
+
+	/**
+	 * @return true if a route was found
+	 */
+	public boolean exists() {
+		return path != null;
+	}
+}
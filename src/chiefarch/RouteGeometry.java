@@ -0,0 +1,183 @@
+package chiefarch;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RouteGeometry is the shape of a route: the locations along it, in order, and the walking
+ * distance from the start of the route to each of them. A RouteGeometry can be simplified to
+ * fewer locations for drawing or sending elsewhere; the simplified geometry keeps the walking
+ * distances of the original route at every location it keeps, so distances read from it are
+ * never shortened by the corners that were cut.
+ *
+ * RouteGeometry is immutable.
+ *
+ * Abstraction Function:
+ * 		The route passes through points.get(0), points.get(1), ..., and distances[i] is the
+ * 			walking distance along the route from points.get(0) to points.get(i)
+ * 		simplified.get(t) is this geometry simplified with tolerance t
+ *
+ * Representation Invariant:
+ * 		points != null, and contains no nulls
+ * 		distances.length == points.size()
+ * 		distances[0] == 0 if distances.length > 0, and distances is non-decreasing
+ */
+public class RouteGeometry {
+
+	// most simplified geometries remembered by simplifyCached, so that a caller with ever-changing
+	// tolerances cannot grow the cache without bound
+	private static final int MAX_CACHED = 16;
+	
+	private final List<Point2D.Double> points;
+	private final double[] distances;
+	private final Map<Double, RouteGeometry> simplified = new ConcurrentHashMap<Double, RouteGeometry>();
+	
+	/**
+	 * Creates a new RouteGeometry
+	 *
+	 * @param points    : the locations along the route, in order
+	 * @param distances : the walking distance from points[0] to each location, in the same order
+	 * @throws IllegalArgumentException if points and distances differ in length, or distances
+	 * 		does not start at 0 and never decrease
+	 */
+	public RouteGeometry(List<Point2D.Double> points, double[] distances) {
+		if (points.size() != distances.length)
+			throw new IllegalArgumentException(points.size() + " points but " + distances.length + " distances");
+		if (distances.length > 0 && distances[0] != 0)
+			throw new IllegalArgumentException("Route starts at distance " + distances[0]);
+		for (int i = 1; i < distances.length; i++)
+			if (!(distances[i] >= distances[i - 1]))
+				throw new IllegalArgumentException("Bad cumulative distance at " + i + ": " + distances[i]);
+		this.points = Collections.unmodifiableList(new ArrayList<Point2D.Double>(points));
+		this.distances = distances.clone();
+	}
+	
+	/**
+	 * @return the locations along this route, in order
+	 */
+	public List<Point2D.Double> points() {
+		return points;
+	}
+	
+	/**
+	 * @return the number of locations along this route
+	 */
+	public int size() {
+		return points.size();
+	}
+	
+	/**
+	 * @param i : the position of a location along this route
+	 * @return the walking distance from the start of this route to location i
+	 */
+	public double distanceAt(int i) {
+		return distances[i];
+	}
+	
+	/**
+	 * @return the walking distance from the start of this route to its end
+	 */
+	public double length() {
+		return (distances.length == 0) ? 0 : distances[distances.length - 1];
+	}
+	
+	/**
+	 * Simplifies this route using the Douglas-Peucker algorithm, dropping every location that lies
+	 * within some distance of the straight line between the locations kept on either side of it.
+	 * The first and last locations are always kept.
+	 *
+	 * @param tolerance : how far (in the same units as the coordinates of this route) the
+	 * 		simplified route may stray from this one
+	 * @return a route through a subset of this route's locations, each with the same walking
+	 * 		distance from the start as in this route
+	 * @throws IllegalArgumentException if tolerance is negative or NaN
+	 */
+	public RouteGeometry simplify(double tolerance) {
+		if (!(tolerance >= 0)) throw new IllegalArgumentException("Bad tolerance: " + tolerance);
+		int n = points.size();
+		if (n <= 2) return this;
+		
+		boolean[] keep = new boolean[n];
+		keep[0] = true;
+		keep[n - 1] = true;
+		
+		// spans still to be examined, as pairs of (first, last) positions
+		int[] stack = new int[2 * n];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = n - 1;
+		while (top > 0) {
+			int last = stack[--top];
+			int first = stack[--top];
+			
+			// find the location in the span farthest from the line between its ends
+			int farthest = -1;
+			double max = tolerance;
+			for (int i = first + 1; i < last; i++) {
+				double d = segmentDistance(points.get(i), points.get(first), points.get(last));
+				if (d > max) {
+					max = d;
+					farthest = i;
+				}
+			}
+			if (farthest < 0) continue;
+			
+			keep[farthest] = true;
+			stack[top++] = first;
+			stack[top++] = farthest;
+			stack[top++] = farthest;
+			stack[top++] = last;
+		}
+		
+		List<Point2D.Double> keptPoints = new ArrayList<Point2D.Double>();
+		double[] keptDistances = new double[n];
+		for (int i = 0; i < n; i++) {
+			if (!keep[i]) continue;
+			keptDistances[keptPoints.size()] = distances[i];
+			keptPoints.add(points.get(i));
+		}
+		return new RouteGeometry(keptPoints, Arrays.copyOf(keptDistances, keptPoints.size()));
+	}
+	
+	/**
+	 * Simplifies this route as simplify(tolerance) does, remembering the result so that asking
+	 * again with the same tolerance (for example, when redrawing at the same zoom level) returns
+	 * it without further work. Only the first few tolerances asked for are remembered.
+	 *
+	 * @param tolerance : how far the simplified route may stray from this one
+	 * @return the simplified route
+	 * @throws IllegalArgumentException if tolerance is negative or NaN
+	 */
+	public RouteGeometry simplifyCached(double tolerance) {
+		RouteGeometry result = simplified.get(tolerance);
+		if (result == null) {
+			result = simplify(tolerance);
+			if (simplified.size() < MAX_CACHED) simplified.put(tolerance, result);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the distance from p to the closest point on the line segment from a to b
+	 */
+	private static double segmentDistance(Point2D.Double p, Point2D.Double a, Point2D.Double b) {
+		double dx = b.x - a.x;
+		double dy = b.y - a.y;
+		double lengthSquared = dx * dx + dy * dy;
+		if (lengthSquared == 0) return p.distance(a);
+		
+		double t = ((p.x - a.x) * dx + (p.y - a.y) * dy) / lengthSquared;
+		t = Math.max(0, Math.min(1, t));
+		return p.distance(a.x + t * dx, a.y + t * dy);
+	}
+	
+	@Override
+	public String toString() {
+		return points.size() + " points over " + length();
+	}
+}
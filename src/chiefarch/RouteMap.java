@@ -0,0 +1,56 @@
+package chiefarch;
+
+import java.util.List;
+
+/**
+ * RouteMap is a map of buildings that can find walking routes between them, whether it covers a
+ * single campus (CampusMap) or several regions loaded as needed (RegionalMap). It is what the
+ * CampusPaths interface needs from a map.
+ */
+public interface RouteMap {
+
+	/**
+	 * Fetches a list of all buildings on this map
+	 *
+	 * @return a sorted, unmodifiable list of abbreviated building names
+	 */
+	List<String> getBuildingAbbrevs();
+	
+	/**
+	 * Finds the buildings on this map whose abbreviations or full names contain some text
+	 *
+	 * @param query : the text to look for, ignoring case
+	 * @param limit : the most buildings to return
+	 * @return the abbreviations of up to limit matching buildings, best matches first
+	 * @throws IllegalArgumentException if limit is negative
+	 */
+	List<String> searchBuildings(String query, int limit);
+	
+	/**
+	 * Fetches the full name of a building by passing in its abbreviation
+	 *
+	 * @param abbrev : a building name abbreviation
+	 * @return the full name of a building
+	 */
+	String getFullName(String abbrev);
+	
+	/**
+	 * Identifies whether or not a specified building is a part of this map
+	 *
+	 * @param building : the abbreviated name of the building in question
+	 * @return true if this building is on this map, false otherwise
+	 */
+	boolean hasBuilding(String building);
+	
+	/**
+	 * Finds the shortest route from one building to another, along with the walking distance from
+	 * start to every location along it
+	 *
+	 * @param start : the abbreviation for the building from which we start our journey
+	 * @param end   : the abbreviation for the destination building
+	 * @return the geometry of the route, starting with the location of start itself. Returns null
+	 * 		if there is no path between start and end (including the case that either start or end
+	 * 		are not buildings on this map)
+	 */
+	RouteGeometry findRouteGeometry(String start, String end);
+}
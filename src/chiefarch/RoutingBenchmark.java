@@ -0,0 +1,128 @@
+package chiefarch;
+
+import java.awt.geom.Point2D;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import chiefarch.CampusParser.MalformedDataException;
+
+/**
+ * RoutingBenchmark times route searches between every pair of buildings on campus and reports
+ * how long each search takes and how many bytes it allocates, comparing the boxed Graph search
+ * against its primitive DoubleWeightedGraph counterpart and against CampusMap itself.
+ *
+ * Run using 'java -cp bin/ chiefarch.RoutingBenchmark'
+ */
+public class RoutingBenchmark {
+
+	// paths for CampusPaths data
+	private static final String DATA_PATH = "data/";
+	private static final String BUILDINGS_PATH = DATA_PATH + "campus_buildings.dat";
+	private static final String PATHS_PATH = DATA_PATH + "campus_paths.dat";
+	
+	// number of untimed rounds over every pair before measuring, to let the JIT settle
+	private static final int WARMUP_ROUNDS = 3;
+	
+	/**
+	 * Query runs one route search between two buildings
+	 */
+	private interface Query {
+		/**
+		 * @param start : index of the starting building
+		 * @param end   : index of the ending building
+		 * @return the number of hops in the route found, so the work cannot be optimized away
+		 */
+		int run(int start, int end);
+	}
+	
+	/**
+	 * Runs a query over every pair of buildings and prints its cost per query
+	 *
+	 * @param name      : a label for the query
+	 * @param buildings : the number of buildings
+	 * @param query     : the search to measure
+	 */
+	private static void measure(String name, int buildings, Query query) {
+		long hops = 0;
+		for (int round = 0; round < WARMUP_ROUNDS; round++)
+			for (int a = 0; a < buildings; a++)
+				for (int b = 0; b < buildings; b++)
+					hops += query.run(a, b);
+		
+		long startBytes = allocatedBytes();
+		long startTime = System.nanoTime();
+		for (int a = 0; a < buildings; a++)
+			for (int b = 0; b < buildings; b++)
+				hops += query.run(a, b);
+		long time = System.nanoTime() - startTime;
+		long bytes = allocatedBytes() - startBytes;
+		
+		long queries = (long) buildings * buildings;
+		System.out.println(String.format("%-32s %10d ns/query %10d bytes/query  (%d hops)",
+				name, time / queries, bytes / queries, hops));
+	}
+	
+	/**
+	 * @return the number of bytes allocated by the calling thread so far, or 0 if this JVM cannot
+	 * 		tell
+	 */
+	static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) return 0;
+		return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+				Thread.currentThread().getId());
+	}
+	
+	public static void main(String[] args) throws MalformedDataException {
+		final CampusMap map = new CampusMap(BUILDINGS_PATH, PATHS_PATH);
+		final List<String> abbrevs = map.getBuildingAbbrevs();
+		final List<Point2D.Double> locations = new ArrayList<Point2D.Double>();
+		for (String abbrev : abbrevs)
+			locations.add(map.locationOf(abbrev));
+		
+		// build the same paths as both a boxed and a primitive graph
+		Map<Point2D.Double, Map<Point2D.Double, Double>> paths = CampusParser.parsePathData(PATHS_PATH);
+		final Graph<Point2D.Double, Double> boxed = new Graph<Point2D.Double, Double>();
+		final DoubleWeightedGraph<Point2D.Double> primitive = new DoubleWeightedGraph<Point2D.Double>();
+		for (Point2D.Double point : paths.keySet()) {
+			boxed.addNode(point);
+			primitive.addNode(point);
+			for (Point2D.Double point_i : paths.get(point).keySet()) {
+				boxed.addNode(point_i);
+				primitive.addNode(point_i);
+				boxed.addEdge(point, point_i, paths.get(point).get(point_i));
+				primitive.addEdge(point, point_i, paths.get(point).get(point_i));
+			}
+		}
+		
+		System.out.println(abbrevs.size() * abbrevs.size() + " queries between " + abbrevs.size()
+				+ " buildings over " + primitive.size() + " locations");
+		measure("Graph<N, Double>.runDijsktra", abbrevs.size(), new Query() {
+			@Override
+			public int run(int start, int end) {
+				return GraphAlgos.runDijsktra(boxed, locations.get(start), locations.get(end)).size();
+			}
+		});
+		measure("DoubleWeightedGraph.runDijsktra", abbrevs.size(), new Query() {
+			@Override
+			public int run(int start, int end) {
+				return GraphAlgos.runDijsktra(primitive, locations.get(start), locations.get(end)).size();
+			}
+		});
+		measure("CampusMap.findRoute", abbrevs.size(), new Query() {
+			@Override
+			public int run(int start, int end) {
+				return map.findRoute(abbrevs.get(start), abbrevs.get(end)).size();
+			}
+		});
+		map.useLandmarks(8);
+		measure("CampusMap.findRoute (landmarks)", abbrevs.size(), new Query() {
+			@Override
+			public int run(int start, int end) {
+				return map.findRoute(abbrevs.get(start), abbrevs.get(end)).size();
+			}
+		});
+	}
+}
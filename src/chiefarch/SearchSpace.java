@@ -0,0 +1,192 @@
+package chiefarch;
+
+import java.util.Arrays;
+
+/**
+ * SearchSpace is the working memory of a shortest-path search over numbered nodes: tentative
+ * costs, parent links, and a priority queue of nodes keyed by primitive doubles. A SearchSpace is
+ * reused from one search to the next, and starting a new search only bumps a generation stamp
+ * rather than clearing or reallocating any arrays, so a search allocates nothing per node or per
+ * edge relaxation.
+ *
+ * A SearchSpace must only be used by one thread at a time; see forCurrentThread().
+ *
+ * Abstraction Function:
+ * 		Node v has been reached in the current search iff reached[v] == generation, in which case
+ * 			its tentative cost is cost[v] and it was reached from node parent[v]
+ * 		Node v has been settled in the current search iff settled[v] == generation
+ * 		The queue holds heap[0..size - 1] as a binary min-heap ordered by key, and a node v in the
+ * 			queue sits at heap[position[v]]
+ *
+ * Representation Invariant:
+ * 		cost, key, parent, reached, settled and position all have the same length
+ * 		For each 0 < i < size, key[heap[(i - 1) / 2]] <= key[heap[i]]
+ */
+final class SearchSpace {
+
+	private static final ThreadLocal<SearchSpace> SPACES = new ThreadLocal<SearchSpace>() {
+		@Override
+		protected SearchSpace initialValue() {
+			return new SearchSpace();
+		}
+	};
+	
+	private double[] cost = new double[0];
+	private double[] key = new double[0];
+	private int[] parent = new int[0];
+	private int[] reached = new int[0];
+	private int[] settled = new int[0];
+	private int[] position = new int[0];
+	private int[] heap = new int[0];
+	private int size;
+	private int generation;
+	
+	/**
+	 * Fetches the SearchSpace belonging to the calling thread
+	 *
+	 * @return a SearchSpace that no other thread uses
+	 */
+	static SearchSpace forCurrentThread() {
+		return SPACES.get();
+	}
+	
+	/**
+	 * Starts a new search, forgetting everything about the previous one
+	 *
+	 * @param n : the number of nodes in the graph to be searched
+	 */
+	void reset(int n) {
+		if (n > cost.length) {
+			int capacity = Math.max(n, 2 * cost.length);
+			cost = new double[capacity];
+			key = new double[capacity];
+			parent = new int[capacity];
+			reached = new int[capacity];
+			settled = new int[capacity];
+			position = new int[capacity];
+			heap = new int[capacity];
+			generation = 0;
+		}
+		if (++generation == Integer.MAX_VALUE) { // stamps are about to wrap around
+			Arrays.fill(reached, 0);
+			Arrays.fill(settled, 0);
+			generation = 1;
+		}
+		size = 0;
+	}
+	
+	/**
+	 * @return true if node v has been reached in this search
+	 */
+	boolean isReached(int v) {
+		return reached[v] == generation;
+	}
+	
+	/**
+	 * @return true if node v has been settled in this search
+	 */
+	boolean isSettled(int v) {
+		return settled[v] == generation;
+	}
+	
+	/**
+	 * @return the tentative cost of node v, or Double.POSITIVE_INFINITY if it has not been reached
+	 */
+	double cost(int v) {
+		return (reached[v] == generation) ? cost[v] : Double.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * @return the node that node v was reached from (undefined for the source of a search)
+	 */
+	int parent(int v) {
+		return parent[v];
+	}
+	
+	/**
+	 * Records a cheaper way of reaching a node and queues it with a given priority, or moves it
+	 * up the queue if it is already queued
+	 *
+	 * @param v        : the node being reached
+	 * @param cost     : the cost of the new path to v
+	 * @param from     : the node the new path reaches v from
+	 * @param priority : the key to queue v with (no greater than any key it is queued with now)
+	 * @requires v has not been settled in this search
+	 */
+	void reach(int v, double cost, int from, double priority) {
+		boolean queued = (reached[v] == generation);
+		reached[v] = generation;
+		this.cost[v] = cost;
+		parent[v] = from;
+		key[v] = priority;
+		if (!queued) {
+			position[v] = size;
+			heap[size++] = v;
+		}
+		siftUp(position[v]);
+	}
+	
+	/**
+	 * @return true if there are no nodes in the queue
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * @return the number of nodes in the queue
+	 */
+	int queued() {
+		return size;
+	}
+	
+	/**
+	 * @return the priority of the node at the front of the queue
+	 */
+	double peekKey() {
+		return key[heap[0]];
+	}
+	
+	/**
+	 * Removes the node at the front of the queue and marks it settled
+	 *
+	 * @return the node that was removed
+	 */
+	int settle() {
+		int min = heap[0];
+		heap[0] = heap[--size];
+		position[heap[0]] = 0;
+		siftDown(0);
+		settled[min] = generation;
+		return min;
+	}
+	
+	private void siftUp(int i) {
+		int v = heap[i];
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (key[heap[up]] <= key[v]) break;
+			heap[i] = heap[up];
+			position[heap[i]] = i;
+			i = up;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+	
+	private void siftDown(int i) {
+		if (size == 0) return;
+		int v = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) break;
+			if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) child++;
+			if (key[v] <= key[heap[child]]) break;
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+}
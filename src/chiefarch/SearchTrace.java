@@ -0,0 +1,245 @@
+package chiefarch;
+
+import java.awt.geom.Point2D;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SearchTrace records how a route search explored its graph: the order in which it settled
+ * nodes, how many nodes were waiting in its frontier after each one, and the edges it relaxed
+ * (those that improved the best known cost of the node at their head) from each settled node.
+ * Searches in GraphAlgos record a trace only when handed one, so untraced searches pay nothing
+ * beyond a null check.
+ *
+ * A trace can be written to a compact binary file along with the location of every node it
+ * mentions, and read back to be replayed.
+ *
+ * Abstraction Function:
+ * 		The i-th node settled (0 <= i < settledCount) is settled[i], with frontier[i] nodes
+ * 			queued right after it was settled, and the edges relaxed from it lead to
+ * 			relaxed[relaxStart[i]], ..., relaxed[relaxStart[i + 1] - 1] (relaxedCount for the last
+ * 			node settled)
+ * 		Node numbers refer to the graph searched, or to locations if locations != null
+ *
+ * Representation Invariant:
+ * 		settled, frontier, relaxStart, relaxed != null
+ * 		0 <= settledCount <= settled.length == frontier.length == relaxStart.length
+ * 		0 <= relaxedCount <= relaxed.length
+ * 		relaxStart[0..settledCount) is non-decreasing and at most relaxedCount
+ */
+public class SearchTrace {
+
+	// identifies trace files ("CPT" and a format version)
+	private static final int MAGIC = 0x43505401;
+	
+	private int[] settled = new int[64];
+	private int[] frontier = new int[64];
+	private int[] relaxStart = new int[64];
+	private int settledCount;
+	
+	private int[] relaxed = new int[256];
+	private int relaxedCount;
+	
+	// locations of the nodes in a trace read from a file (null for a trace just recorded)
+	private List<Point2D.Double> locations;
+	
+	/**
+	 * Creates a new, empty SearchTrace, ready to be handed to a search
+	 */
+	public SearchTrace() {
+	}
+	
+	/**
+	 * Records that a search settled a node
+	 *
+	 * @param v        : the number of the node settled
+	 * @param frontier : the number of nodes still queued
+	 */
+	void settled(int v, int frontier) {
+		if (settledCount == settled.length) {
+			int length = 2 * settled.length;
+			settled = Arrays.copyOf(settled, length);
+			this.frontier = Arrays.copyOf(this.frontier, length);
+			relaxStart = Arrays.copyOf(relaxStart, length);
+		}
+		settled[settledCount] = v;
+		this.frontier[settledCount] = frontier;
+		relaxStart[settledCount] = relaxedCount;
+		settledCount++;
+	}
+	
+	/**
+	 * Records that a search relaxed an edge from the node it settled last
+	 *
+	 * @param w : the number of the node at the head of the edge
+	 */
+	void relaxed(int w) {
+		if (relaxedCount == relaxed.length) relaxed = Arrays.copyOf(relaxed, 2 * relaxed.length);
+		relaxed[relaxedCount++] = w;
+	}
+	
+	/**
+	 * @return the number of nodes settled
+	 */
+	public int settledCount() {
+		return settledCount;
+	}
+	
+	/**
+	 * @param i : a position in the order nodes were settled
+	 * @return the number of the i-th node settled
+	 */
+	public int settledNode(int i) {
+		return settled[checkStep(i)];
+	}
+	
+	/**
+	 * @param i : a position in the order nodes were settled
+	 * @return the number of nodes queued right after the i-th node was settled
+	 */
+	public int frontierSize(int i) {
+		return frontier[checkStep(i)];
+	}
+	
+	/**
+	 * @return the largest number of nodes ever queued at once
+	 */
+	public int maxFrontierSize() {
+		int max = 0;
+		for (int i = 0; i < settledCount; i++)
+			max = Math.max(max, frontier[i]);
+		return max;
+	}
+	
+	/**
+	 * @return the number of edges relaxed
+	 */
+	public int relaxedCount() {
+		return relaxedCount;
+	}
+	
+	/**
+	 * @param i : a position in the order nodes were settled
+	 * @return the numbers of the nodes at the heads of the edges relaxed from the i-th node settled
+	 */
+	public int[] relaxedFrom(int i) {
+		checkStep(i);
+		int end = (i + 1 < settledCount) ? relaxStart[i + 1] : relaxedCount;
+		return Arrays.copyOfRange(relaxed, relaxStart[i], end);
+	}
+	
+	/**
+	 * @return the location of every node mentioned in a trace read from a file, indexed by node
+	 * 		number; null for a trace recorded by a search, whose node numbers are those of the graph
+	 * 		searched
+	 */
+	public List<Point2D.Double> locations() {
+		return locations;
+	}
+	
+	/**
+	 * Writes this trace to a stream. Only the nodes this trace mentions are written, renumbered in
+	 * the order they first appear; read gives them back with their locations.
+	 *
+	 * @param out   : the stream to write to
+	 * @param graph : the graph whose search this trace recorded
+	 * @throws IOException if out cannot be written to, or more than 65535 edges were relaxed
+	 * 		from a single node
+	 */
+	public void write(OutputStream out, ProfiledGraph<Point2D.Double> graph) throws IOException {
+		int[] ids = new int[graph.size()];
+		Arrays.fill(ids, -1);
+		List<Point2D.Double> nodes = new ArrayList<Point2D.Double>();
+		for (int i = 0; i < settledCount; i++) {
+			number(settled[i], ids, nodes, graph);
+			for (int w : relaxedFrom(i))
+				number(w, ids, nodes, graph);
+		}
+		
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(nodes.size());
+		for (Point2D.Double node : nodes) {
+			data.writeFloat((float) node.x);
+			data.writeFloat((float) node.y);
+		}
+		data.writeInt(settledCount);
+		for (int i = 0; i < settledCount; i++) {
+			int[] heads = relaxedFrom(i);
+			if (heads.length > 0xFFFF) throw new IOException("Too many edges relaxed from one node");
+			data.writeInt(ids[settled[i]]);
+			data.writeInt(frontier[i]);
+			data.writeShort(heads.length);
+			for (int w : heads)
+				data.writeInt(ids[w]);
+		}
+		data.flush();
+	}
+	
+	/**
+	 * Reads a trace written by write
+	 *
+	 * @param in : the stream to read from
+	 * @return the trace, whose node numbers refer to its locations()
+	 * @throws IOException if in cannot be read from or does not hold a trace
+	 */
+	public static SearchTrace read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC) throw new IOException("Not a search trace");
+		
+		SearchTrace trace = new SearchTrace();
+		int n = data.readInt();
+		List<Point2D.Double> locations = new ArrayList<Point2D.Double>(n);
+		for (int v = 0; v < n; v++)
+			locations.add(new Point2D.Double(data.readFloat(), data.readFloat()));
+		trace.locations = Collections.unmodifiableList(locations);
+		
+		int steps = data.readInt();
+		for (int i = 0; i < steps; i++) {
+			trace.settled(checkNode(data.readInt(), n), data.readInt());
+			int heads = data.readUnsignedShort();
+			for (int j = 0; j < heads; j++)
+				trace.relaxed(checkNode(data.readInt(), n));
+		}
+		return trace;
+	}
+	
+	/**
+	 * Gives a node its number in a trace file, if it does not have one yet
+	 */
+	private static void number(int v, int[] ids, List<Point2D.Double> nodes,
+			ProfiledGraph<Point2D.Double> graph) {
+		if (ids[v] >= 0) return;
+		ids[v] = nodes.size();
+		nodes.add(graph.node(v));
+	}
+	
+	/**
+	 * @throws IOException if v is not the number of one of n nodes
+	 */
+	private static int checkNode(int v, int n) throws IOException {
+		if (v < 0 || v >= n) throw new IOException("Bad node number in trace: " + v);
+		return v;
+	}
+	
+	/**
+	 * @throws IndexOutOfBoundsException if i is not a position in the order nodes were settled
+	 */
+	private int checkStep(int i) {
+		if (i < 0 || i >= settledCount) throw new IndexOutOfBoundsException("Step " + i + " of " + settledCount);
+		return i;
+	}
+	
+	@Override
+	public String toString() {
+		return settledCount + " nodes settled, " + relaxedCount + " edges relaxed, frontier of at most "
+				+ maxFrontierSize();
+	}
+}
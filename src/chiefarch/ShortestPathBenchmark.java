@@ -0,0 +1,143 @@
+package chiefarch;
+
+import java.awt.geom.Point2D;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import chiefarch.CampusParser.MalformedDataException;
+
+/**
+ * ShortestPathBenchmark times single-source shortest-path trees found by sequential Dijkstra
+ * against those found by parallel delta-stepping with 1, 2, 4, ... threads (up to the number of
+ * cores), on the campus paths and on a large grid with random weights. Every parallel tree is
+ * checked against the sequential one; a mismatch ends the run with a nonzero exit status.
+ *
+ * Run using 'java -cp bin/ chiefarch.ShortestPathBenchmark [side]', where side (default 700) is
+ * the number of nodes along each side of the grid.
+ */
+public class ShortestPathBenchmark {
+
+	// paths for CampusPaths data
+	private static final String DATA_PATH = "data/";
+	private static final String PATHS_PATH = DATA_PATH + "campus_paths.dat";
+	
+	// number of untimed searches before measuring, to let the JIT settle
+	private static final int WARMUP_ROUNDS = 3;
+	
+	// number of timed searches, of which the fastest is reported
+	private static final int TIMED_ROUNDS = 5;
+	
+	/**
+	 * Search finds one shortest-path tree
+	 */
+	private interface Search {
+		ShortestPathTree run();
+	}
+	
+	/**
+	 * @return the fastest time, in nanoseconds, of several runs of a search
+	 */
+	private static long time(Search search) {
+		for (int round = 0; round < WARMUP_ROUNDS; round++)
+			search.run();
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < TIMED_ROUNDS; round++) {
+			long start = System.nanoTime();
+			search.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+	
+	/**
+	 * Times sequential and parallel searches from one node of a graph and prints how they compare
+	 *
+	 * @param name : a label for the graph
+	 * @param g    : the graph to search
+	 * @param src  : the number of the node to search from
+	 * @return true if every parallel search found the same tree as the sequential one. Both trees
+	 * 		are normalized by ShortestPathTree.build, so this checks that the costs agree, not that
+	 * 		the searches chose the same predecessors.
+	 */
+	private static boolean compare(String name, final ProfiledGraph<?> g, final int src) {
+		System.out.println(name + ": " + g.size() + " nodes");
+		final ShortestPathTree expected = GraphAlgos.shortestPathTree(g, ProfiledGraph.DISTANCE, src);
+		long sequential = time(new Search() {
+			@Override
+			public ShortestPathTree run() {
+				return GraphAlgos.shortestPathTree(g, ProfiledGraph.DISTANCE, src);
+			}
+		});
+		System.out.println(String.format("  %-22s %10.2f ms", "sequential Dijkstra", sequential / 1e6));
+		
+		boolean same = true;
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; ; threads = Math.min(2 * threads, cores)) {
+			final ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				ShortestPathTree found = GraphAlgos.parallelShortestPathTree(g, ProfiledGraph.DISTANCE, src, pool);
+				long parallel = time(new Search() {
+					@Override
+					public ShortestPathTree run() {
+						return GraphAlgos.parallelShortestPathTree(g, ProfiledGraph.DISTANCE, src, pool);
+					}
+				});
+				boolean match = found.equals(expected);
+				same &= match;
+				System.out.println(String.format("  %-22s %10.2f ms %6.2fx  %s",
+						"delta-stepping x" + threads, parallel / 1e6, (double) sequential / parallel,
+						match ? "same tree" : "DIFFERENT TREE"));
+			} finally {
+				pool.shutdown();
+			}
+			if (threads == cores) break;
+		}
+		return same;
+	}
+	
+	/**
+	 * @return a side-by-side grid of nodes, each joined to its neighbors by paths of random length
+	 */
+	private static ProfiledGraph<Integer> grid(int side, long seed) {
+		Random random = new Random(seed);
+		DoubleWeightedGraph<Integer> g = new DoubleWeightedGraph<Integer>();
+		for (int v = 0; v < side * side; v++)
+			g.addNode(v);
+		for (int row = 0; row < side; row++) {
+			for (int col = 0; col < side; col++) {
+				int v = row * side + col;
+				if (col + 1 < side) join(g, v, v + 1, 1 + 99 * random.nextDouble());
+				if (row + 1 < side) join(g, v, v + side, 1 + 99 * random.nextDouble());
+			}
+		}
+		return new ProfiledGraph<Integer>(g);
+	}
+	
+	/**
+	 * Adds a path in both directions between two nodes
+	 */
+	private static void join(DoubleWeightedGraph<Integer> g, int a, int b, double weight) {
+		g.addEdge(a, b, weight);
+		g.addEdge(b, a, weight);
+	}
+	
+	public static void main(String[] args) throws MalformedDataException {
+		int side = (args.length > 0) ? Integer.parseInt(args[0]) : 700;
+		System.out.println(Runtime.getRuntime().availableProcessors() + " cores");
+		
+		Map<Point2D.Double, Map<Point2D.Double, Double>> paths = CampusParser.parsePathData(PATHS_PATH);
+		DoubleWeightedGraph<Point2D.Double> campus = new DoubleWeightedGraph<Point2D.Double>();
+		for (Point2D.Double point : paths.keySet()) {
+			campus.addNode(point);
+			for (Point2D.Double point_i : paths.get(point).keySet()) {
+				campus.addNode(point_i);
+				campus.addEdge(point, point_i, paths.get(point).get(point_i));
+			}
+		}
+		
+		boolean same = compare("campus paths", new ProfiledGraph<Point2D.Double>(campus), 0);
+		same &= compare(side + "x" + side + " grid", grid(side, 42), side * side / 2 + side / 2);
+		if (!same) System.exit(1);
+	}
+}
@@ -0,0 +1,198 @@
+package chiefarch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * ShortestPathTree holds the result of a single-source shortest-path search over a numbered
+ * graph: the cost of the cheapest path from the source to every node, and the predecessor of
+ * each node on such a path.
+ *
+ * Where a node has several cheapest predecessors, the tree does not depend on the order in which
+ * a search happened to reach them: the predecessor is the one closest to the source, and of
+ * those, the one with the smallest number. Any two searches that find the same costs (as the
+ * sequential and parallel searches in GraphAlgos do) therefore build identical trees.
+ *
+ * ShortestPathTree is immutable.
+ *
+ * Abstraction Function:
+ * 		The cheapest path from source to node v costs dist[v] (Double.POSITIVE_INFINITY if there
+ * 			is none), and its last edge runs from parent[v] (-1 for source and unreached nodes)
+ *
+ * Representation Invariant:
+ * 		dist.length == parent.length, and 0 <= source < dist.length
+ * 		dist[source] == 0 and parent[source] == -1
+ * 		parent[v] == -1 iff v == source or dist[v] is infinite
+ */
+public class ShortestPathTree {
+
+	// nodes handled by each parallel task when choosing predecessors
+	private static final int CHUNK = 4096;
+	
+	private final int source;
+	private final double[] dist;
+	private final int[] parent;
+	
+	/**
+	 * Creates a new ShortestPathTree
+	 */
+	private ShortestPathTree(int source, double[] dist, int[] parent) {
+		this.source = source;
+		this.dist = dist;
+		this.parent = parent;
+	}
+	
+	/**
+	 * Builds the tree of cheapest paths over a graph, given the cost of reaching each node
+	 *
+	 * @param g       : the graph searched
+	 * @param profile : the weight profile of g costs were measured with
+	 * @param source  : the number of the node searched from
+	 * @param dist    : the cost of the cheapest path from source to each node, each computed by
+	 * 		adding edge weights one at a time from source on; this array is kept, not copied
+	 * @param pool    : the pool to choose predecessors with, or null to choose them on the calling
+	 * 		thread
+	 * @return the tree
+	 */
+	static ShortestPathTree build(final ProfiledGraph<?> g, int profile, int source, final double[] dist,
+			ForkJoinPool pool) {
+		final double[] weights = g.weights(profile);
+		final int n = g.size();
+		final AtomicIntegerArray parents = new AtomicIntegerArray(n);
+		for (int v = 0; v < n; v++)
+			parents.set(v, -1);
+		
+		// offer every edge lying on a cheapest path and leading farther from source to its head
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int first = 0; first < n; first += CHUNK) {
+			final int from = first;
+			final int to = Math.min(n, first + CHUNK);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int u = from; u < to; u++) {
+						if (Double.isInfinite(dist[u])) continue;
+						for (int e = g.edgeStart(u); e < g.edgeEnd(u); e++) {
+							int v = g.target(e);
+							if (dist[u] < dist[v] && dist[u] + weights[g.slot(u, e)] == dist[v])
+								offer(parents, dist, v, u);
+						}
+					}
+					return null;
+				}
+			});
+		}
+		if (pool != null && tasks.size() > 1) {
+			pool.invokeAll(tasks);
+		} else {
+			for (Callable<Void> task : tasks) {
+				try {
+					task.call();
+				} catch (Exception e) {
+					throw new IllegalStateException(e); // call() throws nothing checked
+				}
+			}
+		}
+		
+		int[] parent = new int[n];
+		for (int v = 0; v < n; v++)
+			parent[v] = parents.get(v);
+		parent[source] = -1;
+		
+		// nodes reached only from nodes just as far away (over edges too light to add to the cost)
+		// get their predecessors from nodes already in the tree, so that the tree has no cycles
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int u = 0; u < n; u++) {
+				if (u != source && parent[u] < 0) continue;
+				for (int e = g.edgeStart(u); e < g.edgeEnd(u); e++) {
+					int v = g.target(e);
+					if (v != source && parent[v] < 0 && !Double.isInfinite(dist[v])
+							&& dist[u] + weights[g.slot(u, e)] == dist[v]) {
+						parent[v] = u;
+						changed = true;
+					}
+				}
+			}
+		}
+		return new ShortestPathTree(source, dist, parent);
+	}
+	
+	/**
+	 * Makes u the predecessor of v, unless v already has a predecessor that is closer to the
+	 * source, or as close with a smaller number
+	 */
+	private static void offer(AtomicIntegerArray parents, double[] dist, int v, int u) {
+		while (true) {
+			int current = parents.get(v);
+			if (current >= 0 && (dist[current] < dist[u] || (dist[current] == dist[u] && current < u)))
+				return;
+			if (parents.compareAndSet(v, current, u)) return;
+		}
+	}
+	
+	/**
+	 * @return the number of the node the paths in this tree start from
+	 */
+	public int source() {
+		return source;
+	}
+	
+	/**
+	 * @return the number of nodes in the graph searched
+	 */
+	public int size() {
+		return dist.length;
+	}
+	
+	/**
+	 * @param v : the number of a node
+	 * @return the cost of the cheapest path from the source to v, or Double.POSITIVE_INFINITY if
+	 * 		there is no path
+	 */
+	public double distance(int v) {
+		return dist[v];
+	}
+	
+	/**
+	 * @param v : the number of a node
+	 * @return the number of the node before v on the cheapest path from the source to v, or -1 if
+	 * 		v is the source or cannot be reached
+	 */
+	public int parent(int v) {
+		return parent[v];
+	}
+	
+	/**
+	 * @param v : the number of a node
+	 * @return the numbers of the nodes on the cheapest path from the source to v, starting with
+	 * 		the source and ending with v, or null if v cannot be reached
+	 */
+	public int[] pathTo(int v) {
+		if (Double.isInfinite(dist[v])) return null;
+		int hops = 0;
+		for (int w = v; w != source; w = parent[w])
+			hops++;
+		int[] path = new int[hops + 1];
+		for (int w = v, i = hops; i >= 0; w = parent[w], i--)
+			path[i] = w;
+		return path;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof ShortestPathTree)) return false;
+		ShortestPathTree other = (ShortestPathTree) o;
+		return source == other.source && Arrays.equals(dist, other.dist) && Arrays.equals(parent, other.parent);
+	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * (31 * source + Arrays.hashCode(dist)) + Arrays.hashCode(parent);
+	}
+}
@@ -0,0 +1,97 @@
+package chiefarch;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SingleFlight collapses concurrent computations of the same key into one. The first caller for
+ * a key runs the computation on its own thread; any caller asking for the same key while that
+ * computation is still running waits for it and receives the same result (or exception) instead
+ * of computing it again. Nothing is remembered once a computation finishes, so a later call for
+ * the same key computes afresh.
+ *
+ * @param K : the type of keys identifying computations
+ * @param V : the type of results
+ *
+ * Abstraction Function:
+ * 		For each key k in inFlight, inFlight.get(k) is the computation for k currently being run by
+ * 			some caller
+ * 		computed is the number of computations run, and coalesced is the number of calls that
+ * 			shared another caller's computation instead
+ *
+ * Representation Invariant:
+ * 		inFlight != null, and contains no null keys or values
+ */
+class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<K, FutureTask<V>>();
+	private final AtomicLong computed = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	
+	/**
+	 * Computes the result for a key, or waits for the computation already running for it
+	 *
+	 * @param key         : identifies the computation; calls with equal keys must compute equal
+	 * 		results
+	 * @param computation : computes the result if no computation for key is running
+	 * @return the result of whichever computation for key this call ran or joined
+	 * @throws RuntimeException or Error if that computation threw one
+	 */
+	public V run(K key, Callable<V> computation) {
+		FutureTask<V> task = new FutureTask<V>(computation);
+		FutureTask<V> running = inFlight.putIfAbsent(key, task);
+		if (running != null) {
+			coalesced.incrementAndGet();
+			return await(running);
+		}
+		
+		computed.incrementAndGet();
+		try {
+			task.run();
+		} finally {
+			inFlight.remove(key, task);
+		}
+		return await(task);
+	}
+	
+	/**
+	 * @return the number of computations run so far
+	 */
+	public long computedCount() {
+		return computed.get();
+	}
+	
+	/**
+	 * @return the number of calls so far that shared a computation already running
+	 */
+	public long coalescedCount() {
+		return coalesced.get();
+	}
+	
+	/**
+	 * Waits for a computation to finish, passing on anything it threw
+	 */
+	private static <V> V await(FutureTask<V> task) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				} catch (InterruptedException e) {
+					interrupted = true; // keep waiting; the result is shared with other callers
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+					if (cause instanceof Error) throw (Error) cause;
+					throw new IllegalStateException(cause);
+				}
+			}
+		} finally {
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+	}
+}
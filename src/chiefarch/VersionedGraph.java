@@ -0,0 +1,275 @@
+package chiefarch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * VersionedGraph holds a ProfiledGraph that can change while other threads are searching it.
+ * Every change builds a new, immutable Version of the graph (sharing what it can with the version
+ * before it) and publishes it in a single step. Readers pin whichever version is current when
+ * they start and keep using it for as long as they like, without ever taking a lock or seeing a
+ * half-made change. Writers are serialized with one another.
+ *
+ * Besides the graph itself, a Version carries the landmark tables and component labels computed
+ * for it, so that a search never mixes one version's graph with another's precomputed data.
+ *
+ * @param N : the type of nodes in this graph
+ *
+ * Abstraction Function:
+ * 		The graph as of now is current.graph, with weight profile p named profileNames.get(p) and
+ * 			weighed by weighers.get(p - 1) for p > 0
+ *
+ * Representation Invariant:
+ * 		current != null
+ * 		current.graph.profileNames() equals profileNames
+ * 		weighers.size() == profileNames.size() - 1
+ */
+public class VersionedGraph<N> {
+
+	private final boolean undirected; // whether each version stores two-way edges once
+	private final List<String> profileNames;
+	private final List<ProfiledGraph.EdgeWeigher<N>> weighers;
+	private int landmarkCount;
+	private volatile Version<N> current;
+	
+	/**
+	 * Creates a new VersionedGraph whose first version has the nodes and edges of g
+	 *
+	 * @param g          : the graph to copy into the first version
+	 * @param undirected : whether to store two-way edges once (see ProfiledGraph)
+	 * @throws IllegalArgumentException if g is null or has a negative or NaN edge weight
+	 */
+	public VersionedGraph(DoubleWeightedGraph<N> g, boolean undirected) {
+		this.undirected = undirected;
+		this.profileNames = new ArrayList<String>();
+		this.profileNames.add(ProfiledGraph.DISTANCE_NAME);
+		this.weighers = new ArrayList<ProfiledGraph.EdgeWeigher<N>>();
+		ProfiledGraph<N> graph = new ProfiledGraph<N>(g, undirected);
+		List<Landmarks<N>> none = Collections.emptyList();
+		this.current = new Version<N>(1, graph, none, new Components(graph));
+	}
+	
+	/**
+	 * Pins the current version of this graph. The version returned never changes, no matter what
+	 * is done to this VersionedGraph afterwards.
+	 *
+	 * @return the current version
+	 */
+	public Version<N> current() {
+		return current;
+	}
+	
+	/**
+	 * Changes this graph by building and publishing a new version of it. However small the change,
+	 * this copies the whole graph, weighs every edge under every profile, and recomputes every
+	 * landmark table, all while holding the lock writers share; readers are not held up.
+	 *
+	 * @param edit : the change to make, applied to a private copy of the current graph
+	 * @return the newly published version
+	 * @throws IllegalArgumentException if the edited graph has a negative or NaN edge weight, or
+	 * 		(in undirected mode) a profile weighs the two directions of a two-way edge differently
+	 */
+	public synchronized Version<N> edit(Edit<N> edit) {
+		ProfiledGraph<N> previous = current.graph;
+		DoubleWeightedGraph<N> copy = previous.toDoubleWeightedGraph();
+		edit.apply(copy);
+		
+		ProfiledGraph<N> graph = new ProfiledGraph<N>(copy, undirected, previous);
+		for (int p = 1; p < profileNames.size(); p++)
+			graph.addProfile(profileNames.get(p), weighers.get(p - 1));
+		return publish(graph, computeLandmarks(graph, landmarkCount), new Components(graph));
+	}
+	
+	/**
+	 * Adds a node to this graph, publishing a new version
+	 *
+	 * @param node : the node to add
+	 * @return the newly published version
+	 */
+	public Version<N> addNode(final N node) {
+		return edit(new Edit<N>() {
+			@Override
+			public void apply(DoubleWeightedGraph<N> g) {
+				g.addNode(node);
+			}
+		});
+	}
+	
+	/**
+	 * Removes a node and every edge touching it from this graph, publishing a new version
+	 *
+	 * @param node : the node to remove
+	 * @return the newly published version
+	 */
+	public Version<N> removeNode(final N node) {
+		return edit(new Edit<N>() {
+			@Override
+			public void apply(DoubleWeightedGraph<N> g) {
+				g.removeNode(node);
+			}
+		});
+	}
+	
+	/**
+	 * Adds an edge to this graph (adding its ends as nodes if needed), publishing a new version
+	 *
+	 * @param src    : the node at the tail end of the edge
+	 * @param dest   : the node at the head of the edge
+	 * @param weight : the weight of the edge under the DISTANCE profile
+	 * @return the newly published version
+	 * @throws IllegalArgumentException if weight is negative or NaN
+	 */
+	public Version<N> addEdge(final N src, final N dest, final double weight) {
+		return edit(new Edit<N>() {
+			@Override
+			public void apply(DoubleWeightedGraph<N> g) {
+				g.addNode(src);
+				g.addNode(dest);
+				g.addEdge(src, dest, weight);
+			}
+		});
+	}
+	
+	/**
+	 * Removes the edge from one node to another from this graph, publishing a new version
+	 *
+	 * @param src  : the node at the tail end of the edge
+	 * @param dest : the node at the head of the edge
+	 * @return the newly published version
+	 */
+	public Version<N> removeEdge(final N src, final N dest) {
+		return edit(new Edit<N>() {
+			@Override
+			public void apply(DoubleWeightedGraph<N> g) {
+				if (g.contains(src) && g.contains(dest)) g.removeEdge(src, dest);
+			}
+		});
+	}
+	
+	/**
+	 * Adds a weight profile to this graph, publishing a new version. The weigher is kept and
+	 * applied again to every later version. Versions pinned before the call keep the profiles they
+	 * had, though the new version shares their edges and the weights of their profiles.
+	 *
+	 * @param name    : the name of the new profile
+	 * @param weigher : computes the weight of each edge under the new profile
+	 * @return the newly published version
+	 * @throws IllegalArgumentException as ProfiledGraph.addProfile does
+	 */
+	public synchronized Version<N> addProfile(String name, ProfiledGraph.EdgeWeigher<N> weigher) {
+		ProfiledGraph<N> graph = current.graph.shareTopology();
+		int p = graph.addProfile(name, weigher);
+		profileNames.add(name);
+		weighers.add(weigher);
+		
+		List<Landmarks<N>> landmarks = new ArrayList<Landmarks<N>>(current.landmarks);
+		if (landmarkCount > 0) landmarks.add(new Landmarks<N>(graph, p, landmarkCount));
+		return publish(graph, landmarks, current.components);
+	}
+	
+	/**
+	 * Sets how many landmarks each version computes for each of its profiles, publishing a new
+	 * version with those landmarks
+	 *
+	 * @param count : the number of landmarks per profile, or 0 for none
+	 * @return the newly published version
+	 * @throws IllegalArgumentException if count is negative
+	 */
+	public synchronized Version<N> useLandmarks(int count) {
+		if (count < 0) throw new IllegalArgumentException("Negative landmark count: " + count);
+		landmarkCount = count;
+		return publish(current.graph, computeLandmarks(current.graph, count), current.components);
+	}
+	
+	/**
+	 * Makes a new version current. Components depend only on which edges there are, so a graph
+	 * given new weights may keep the components of the version before it.
+	 */
+	private Version<N> publish(ProfiledGraph<N> graph, List<Landmarks<N>> landmarks,
+			Components components) {
+		current = new Version<N>(current.number + 1, graph, landmarks, components);
+		return current;
+	}
+	
+	/**
+	 * @return landmark tables for every profile of graph (an empty list if count is 0)
+	 */
+	private static <N> List<Landmarks<N>> computeLandmarks(ProfiledGraph<N> graph, int count) {
+		List<Landmarks<N>> landmarks = new ArrayList<Landmarks<N>>();
+		for (int p = 0; count > 0 && p < graph.profileCount(); p++)
+			landmarks.add(new Landmarks<N>(graph, p, count));
+		return landmarks;
+	}
+	
+	/**
+	 * Version is one immutable state of a VersionedGraph
+	 *
+	 * @param <N> : the type of nodes in the graph
+	 */
+	public static class Version<N> {
+		// numbers increase by one with every version published
+		public final long number;
+		
+		// the graph as of this version
+		public final ProfiledGraph<N> graph;
+		
+		// the strongly connected components of graph
+		public final Components components;
+		
+		// landmark tables for each profile of graph (empty if landmarks are not in use)
+		private final List<Landmarks<N>> landmarks;
+		
+		private Version(long number, ProfiledGraph<N> graph, List<Landmarks<N>> landmarks,
+				Components components) {
+			this.number = number;
+			this.graph = graph;
+			this.components = components;
+			this.landmarks = Collections.unmodifiableList(landmarks);
+		}
+		
+		/**
+		 * Tells in constant time whether there may be a path between two nodes of graph
+		 *
+		 * @param src  : the node a path would start at
+		 * @param dest : the node a path would end at
+		 * @return false if either node is not in graph or there is certainly no path from src to
+		 * 		dest (see Components.mayReach), true otherwise
+		 */
+		public boolean mayReach(N src, N dest) {
+			int u = graph.indexOf(src);
+			int v = graph.indexOf(dest);
+			return u >= 0 && v >= 0 && components.mayReach(u, v);
+		}
+		
+		/**
+		 * @param profile : the number of a weight profile of graph
+		 * @return the landmark tables for profile, or null if landmarks are not in use
+		 */
+		public Landmarks<N> landmarks(int profile) {
+			return (profile < landmarks.size()) ? landmarks.get(profile) : null;
+		}
+		
+		/**
+		 * @return the number of bytes used by the landmark tables of every profile
+		 */
+		public long landmarkMemoryBytes() {
+			long bytes = 0;
+			for (Landmarks<N> tables : landmarks)
+				bytes += tables.memoryBytes();
+			return bytes;
+		}
+	}
+	
+	/**
+	 * Edit is a change to be made to a copy of a graph
+	 *
+	 * @param <N> : the type of nodes in the graph
+	 */
+	public interface Edit<N> {
+		/**
+		 * @param g : a private copy of the current graph, to be modified in place
+		 */
+		void apply(DoubleWeightedGraph<N> g);
+	}
+}